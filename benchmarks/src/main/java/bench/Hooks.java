@@ -0,0 +1,128 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Accès aux classes du projet (package par défaut) depuis le package bench.
+ *
+ * JMH refuse les benchmarks du package par défaut, et une classe d'un package nommé ne peut pas
+ * référencer le package par défaut : on passe donc par des MethodHandle static final, que le JIT
+ * inline comme des appels directs. Toutes les signatures sont ramenées à Object.
+ */
+final class Hooks {
+
+    static final MethodHandle NEW_VOCABULARY;          // () -> Vocabulary
+    static final MethodHandle NEW_TRAINER;             // (Corpus, Vocabulary, Vocabulary) -> DataChunkTrainer
+    static final MethodHandle NEW_PRIVATE_TRAINER;     // (Corpus) -> DataChunkTrainer (dictionnaires propres)
+    static final MethodHandle TRAINER_CALL;            // (DataChunkTrainer) -> PartialResult
+    static final MethodHandle NEW_PARTIAL;             // (Vocabulary, Vocabulary) -> PartialResult
+    static final MethodHandle MERGE_IN;                // (PartialResult, PartialResult) -> void
+    static final MethodHandle NEW_MODEL;               // (PartialResult) -> NaiveBayesModel
+    static final MethodHandle PREDICT;                 // (NaiveBayesModel, List<String>) -> String
+    static final MethodHandle PREDICT_BATCH;           // (NaiveBayesModel, List<List<String>>, int) -> BatchPrediction
+    static final MethodHandle LOAD_AND_PREPROCESS;     // (String, boolean) -> Corpus
+    static final MethodHandle CHUNKS;                  // (Corpus, int) -> List<Corpus>
+    static final MethodHandle SLICE;                   // (Corpus, int, int) -> Corpus
+    static final MethodHandle MESSAGES;                // (Corpus) -> List<List<String>>
+    static final MethodHandle CORPUS_FROM_COLLECTION;  // (String, long) -> SyntheticCorpus
+    static final MethodHandle CORPUS_GENERATE;         // (SyntheticCorpus, int, int) -> Corpus
+    static final MethodHandle CORPUS_WRITE;            // (SyntheticCorpus, Path, int, int) -> void
+
+    static {
+        try {
+            Class<?> vocabulary = Class.forName("Vocabulary");
+            Class<?> trainer = Class.forName("DataChunkTrainer");
+            Class<?> partial = Class.forName("PartialResult");
+            Class<?> model = Class.forName("NaiveBayesModel");
+            Class<?> corpus = Class.forName("SyntheticCorpus");
+            Class<?> data = Class.forName("Corpus");
+
+            NEW_VOCABULARY = constructor(vocabulary);
+            NEW_TRAINER = constructor(trainer, data, vocabulary, vocabulary);
+            NEW_PRIVATE_TRAINER = constructor(trainer, data);
+            TRAINER_CALL = method(trainer, "call");
+            NEW_PARTIAL = constructor(partial, vocabulary, vocabulary);
+            MERGE_IN = method(partial, "mergeIn", partial);
+            NEW_MODEL = constructor(model, partial);
+            PREDICT = method(model, "predict", List.class);
+            PREDICT_BATCH = method(model, "predictBatch", List.class, int.class);
+            LOAD_AND_PREPROCESS = method(Class.forName("DataPreprocessor"), "loadAndPreprocess",
+                    String.class, boolean.class);
+            CHUNKS = method(data, "chunks", int.class);
+            SLICE = method(data, "slice", int.class, int.class);
+            MESSAGES = method(data, "messages");
+            CORPUS_FROM_COLLECTION = method(corpus, "fromCollection", String.class, long.class);
+            CORPUS_GENERATE = method(corpus, "generate", int.class, int.class);
+            CORPUS_WRITE = method(corpus, "writeCollection", Path.class, int.class, int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Hooks() {
+    }
+
+    /**
+     * Corpus synthétique partagé par les benchmarks, calqué sur le fichier de la propriété
+     * système corpus.seed (défaut : SMSSpamCollection dans le répertoire courant).
+     */
+    static Object corpus() throws Throwable {
+        String seedFile = System.getProperty("corpus.seed", "SMSSpamCollection");
+        return (Object) CORPUS_FROM_COLLECTION.invokeExact((Object) seedFile, (Object) 42L);
+    }
+
+    // Corpus (colonnes) de numDocs messages générés
+    static Object generate(Object corpus, int numDocs, int vocabularySize) throws Throwable {
+        return (Object) CORPUS_GENERATE.invokeExact(corpus, (Object) numDocs, (Object) vocabularySize);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> chunks(Object data, int numChunks) throws Throwable {
+        return (List<Object>) (Object) CHUNKS.invokeExact(data, (Object) numChunks);
+    }
+
+    static Object slice(Object data, int from, int to) throws Throwable {
+        return (Object) SLICE.invokeExact(data, (Object) from, (Object) to);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<List<String>> messages(Object data) throws Throwable {
+        return (List<List<String>>) (Object) MESSAGES.invokeExact(data);
+    }
+
+    static Object train(Object chunk, Object vocabulary, Object labels) throws Throwable {
+        Object trainer = (Object) NEW_TRAINER.invokeExact(chunk, vocabulary, labels);
+        return (Object) TRAINER_CALL.invokeExact(trainer);
+    }
+
+    // Entraînement avec des dictionnaires propres au morceau (fusion par re-numérotation)
+    static Object trainPrivate(Object chunk) throws Throwable {
+        Object trainer = (Object) NEW_PRIVATE_TRAINER.invokeExact(chunk);
+        return (Object) TRAINER_CALL.invokeExact(trainer);
+    }
+
+    private static MethodHandle constructor(Class<?> c, Class<?>... params) throws ReflectiveOperationException {
+        Constructor<?> ctor = c.getDeclaredConstructor(params);
+        ctor.setAccessible(true);
+        return generic(MethodHandles.lookup().unreflectConstructor(ctor));
+    }
+
+    private static MethodHandle method(Class<?> c, String name, Class<?>... params) throws ReflectiveOperationException {
+        Method m = c.getDeclaredMethod(name, params);
+        m.setAccessible(true);
+        return generic(MethodHandles.lookup().unreflect(m));
+    }
+
+    // Paramètres et retour en Object (void conservé) pour des appels invokeExact uniformes
+    private static MethodHandle generic(MethodHandle mh) {
+        MethodType type = mh.type().generic();
+        if (mh.type().returnType() == void.class) type = type.changeReturnType(void.class);
+        return mh.asType(type);
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chargement : DataPreprocessor.loadAndPreprocess (lecture + tokenisation + stopwords)
+ * sur un fichier synthétique au format SMSSpamCollection écrit une fois par essai.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dnaivebayes.cache=false"})
+public class LoadBenchmark {
+
+    @Param({"5000", "50000"})
+    public int corpusSize;
+
+    @Param({"2000", "20000"})
+    public int vocabularySize;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        file = Files.createTempFile("synthetic-corpus", ".tsv");
+        Hooks.CORPUS_WRITE.invokeExact(Hooks.corpus(), (Object) file, (Object) corpusSize, (Object) vocabularySize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Object loadAndPreprocess() throws Throwable {
+        return (Object) Hooks.LOAD_AND_PREPROCESS.invokeExact((Object) file.toString(), (Object) true);
+    }
+}
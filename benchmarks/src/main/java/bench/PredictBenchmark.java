@@ -0,0 +1,64 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prédiction : NaiveBayesModel.predict message par message, et predictBatch sur threads cœurs.
+ * Le modèle est entraîné sur corpusSize messages synthétiques ; les messages prédits sont les
+ * MESSAGES suivants du même tirage (jamais vus à l'entraînement, donc avec des mots inconnus).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dnaivebayes.cache=false"})
+public class PredictBenchmark {
+
+    private static final int MESSAGES = 4096;
+
+    @Param({"5000", "50000"})
+    public int corpusSize;
+
+    @Param({"2000", "20000"})
+    public int vocabularySize;
+
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    private Object model;
+    private List<List<String>> messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Object docs = Hooks.generate(Hooks.corpus(), corpusSize + MESSAGES, vocabularySize);
+        Object vocabulary = (Object) Hooks.NEW_VOCABULARY.invokeExact();
+        Object labels = (Object) Hooks.NEW_VOCABULARY.invokeExact();
+        Object counts = Hooks.train(Hooks.slice(docs, 0, corpusSize), vocabulary, labels);
+        model = (Object) Hooks.NEW_MODEL.invokeExact(counts);
+
+        // Listes matérialisées : la mesure ne compte pas la résolution id -> mot des vues du Corpus
+        messages = new ArrayList<>(MESSAGES);
+        for (List<String> tokens : Hooks.messages(Hooks.slice(docs, corpusSize, corpusSize + MESSAGES))) {
+            messages.add(new ArrayList<>(tokens));
+        }
+    }
+
+    @Benchmark
+    public Object predict() throws Throwable {
+        List<String> tokens = messages.get(next);
+        next = (next + 1) & (MESSAGES - 1);
+        return (Object) Hooks.PREDICT.invokeExact(model, (Object) tokens);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object predictBatch() throws Throwable {
+        return (Object) Hooks.PREDICT_BATCH.invokeExact(model, (Object) messages, (Object) threads);
+    }
+}
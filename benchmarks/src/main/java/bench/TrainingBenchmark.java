@@ -0,0 +1,79 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemins critiques de l'entraînement : découpage (Corpus.chunks, tranches sans copie), comptage d'un morceau
+ * (DataChunkTrainer.call) et fusion des résultats partiels (PartialResult.mergeIn).
+ *
+ * threads = nombre de morceaux, comme dans NaiveBayesParallel (un morceau par thread) :
+ * trainChunk mesure donc le travail d'un thread, mergeAll le coût de la réduction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dnaivebayes.cache=false"})
+public class TrainingBenchmark {
+
+    @Param({"5000", "50000"})
+    public int corpusSize;
+
+    @Param({"2000", "20000"})
+    public int vocabularySize;
+
+    @Param({"1", "4", "8"})
+    public int threads;
+
+    // true : dictionnaires partagés (fusion élément par élément), false : re-numérotation des tokens
+    @Param({"true", "false"})
+    public boolean sharedVocabulary;
+
+    private Object docs;
+    private Object firstChunk;
+    private List<Object> partials;
+    private Object vocabulary;
+    private Object labels;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        docs = Hooks.generate(Hooks.corpus(), corpusSize, vocabularySize);
+        List<Object> chunks = Hooks.chunks(docs, threads);
+        firstChunk = chunks.get(0);
+
+        vocabulary = (Object) Hooks.NEW_VOCABULARY.invokeExact();
+        labels = (Object) Hooks.NEW_VOCABULARY.invokeExact();
+        partials = new ArrayList<>();
+        for (Object c : chunks) {
+            partials.add(sharedVocabulary ? Hooks.train(c, vocabulary, labels) : Hooks.trainPrivate(c));
+        }
+    }
+
+    @Benchmark
+    public Object chunks() throws Throwable {
+        return (Object) Hooks.CHUNKS.invokeExact(docs, (Object) threads);
+    }
+
+    @Benchmark
+    public Object trainChunk() throws Throwable {
+        return sharedVocabulary ? Hooks.train(firstChunk, vocabulary, labels) : Hooks.trainPrivate(firstChunk);
+    }
+
+    // Les résultats partiels ne sont pas modifiés : on fusionne dans un résultat vide
+    @Benchmark
+    public Object mergeAll() throws Throwable {
+        Object global = sharedVocabulary
+                ? (Object) Hooks.NEW_PARTIAL.invokeExact(vocabulary, labels)
+                : (Object) Hooks.NEW_PARTIAL.invokeExact((Object) Hooks.NEW_VOCABULARY.invokeExact(),
+                                                         (Object) Hooks.NEW_VOCABULARY.invokeExact());
+        for (Object pr : partials) {
+            Hooks.MERGE_IN.invokeExact(global, pr);
+        }
+        return global;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Classe BatchPrediction
+ * Résultat d'une prédiction par lot : classe prédite et score (log-probabilité jointe
+ * de la classe retenue) pour chaque message, dans l'ordre d'entrée.
+ *
+ * compute() répartit le calcul sur un ForkJoinPool (découpage récursif par plages d'indices) :
+ * celui fourni par l'appelant, ou le pool partagé de ce parallélisme (SharedPools), jamais un pool
+ * par appel. Chaque tâche écrit dans des cases disjointes des tableaux, sans synchronisation.
+ */
+public final class BatchPrediction {
+
+    // Calcule la prédiction de l'élément item et l'écrit à la position index de out
+    @FunctionalInterface
+    public interface Scorer<T> {
+        void score(T item, BatchPrediction out, int index);
+    }
+
+    private final String[] labels;
+    private final double[] scores;
+
+    public BatchPrediction(int size) {
+        this.labels = new String[size];
+        this.scores = new double[size];
+    }
+
+    public void set(int index, String label, double score) {
+        labels[index] = label;
+        scores[index] = score;
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public String label(int index) {
+        return labels[index];
+    }
+
+    public double score(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Prédit tous les éléments en parallèle.
+     * @param items éléments à prédire
+     * @param parallelism nb de threads (1 = exécution dans le thread appelant)
+     * @param scorer fonction de prédiction d'un élément (doit être thread-safe)
+     */
+    public static <T> BatchPrediction compute(List<T> items, int parallelism, Scorer<T> scorer) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        if (parallelism == 1 || items.size() < 2) {
+            List<T> list = items instanceof RandomAccess ? items : new ArrayList<>(items);
+            BatchPrediction out = new BatchPrediction(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                scorer.score(list.get(i), out, i);
+            }
+            return out;
+        }
+        return compute(items, SharedPools.get(parallelism), scorer);
+    }
+
+    /**
+     * Prédit tous les éléments en parallèle sur le pool fourni (non fermé).
+     */
+    public static <T> BatchPrediction compute(List<T> items, ForkJoinPool pool, Scorer<T> scorer) {
+        List<T> list = items instanceof RandomAccess ? items : new ArrayList<>(items);
+        int n = list.size();
+        BatchPrediction out = new BatchPrediction(n);
+        // ~8 tâches par thread pour lisser les différences de longueur de messages
+        int threshold = Math.max(64, n / (pool.getParallelism() * 8));
+        pool.invoke(new RangeTask<>(list, out, scorer, 0, n, threshold));
+        return out;
+    }
+
+    private static final class RangeTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> items;
+        private final BatchPrediction out;
+        private final Scorer<T> scorer;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        RangeTask(List<T> items, BatchPrediction out, Scorer<T> scorer, int from, int to, int threshold) {
+            this.items = items;
+            this.out = out;
+            this.scorer = scorer;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    scorer.score(items.get(i), out, i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask<>(items, out, scorer, from, mid, threshold),
+                      new RangeTask<>(items, out, scorer, mid, to, threshold));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ClassificationServer.java
+ *
+ * Service de classification HTTP (HttpServer du JDK), une requête = un thread virtuel
+ * (Java 21+, sinon repli sur un pool de threads classique).
+ *
+ * - POST /classify : corps = un message par ligne ; réponse = "label\tscore" par ligne, dans l'ordre
+ * - POST /reload   : recharge le fichier modèle
+ * - GET  /health   : état + version du modèle
+ *
+ * Le modèle est projeté en mémoire (MappedModel.open : hors du tas et hors de la limite de mémoire directe,
+ * taille du tas indépendante du vocabulaire) ; le fichier est remplacé par renommage (ModelFile.write).
+ * Il est remplacé par une écriture atomique de référence : les requêtes en cours terminent avec l'ancien
+ * modèle, les suivantes utilisent le nouveau ; l'ancienne projection est retirée par le GC une fois
+ * qu'elle n'est plus référencée (cache de pages uniquement, hors de la limite de mémoire directe).
+ * Le fichier est aussi surveillé (date de modification) pour un rechargement automatique.
+ *
+ * Cache de prédictions optionnel (PredictionCache) : les messages répétés ne sont ni re-tokenisés
+ * ni re-calculés ; il est vidé automatiquement au changement de modèle.
+ */
+public class ClassificationServer implements AutoCloseable {
+
+    // Au-delà de cette taille, un lot est prédit en parallèle sur tous les cœurs
+    private static final int PARALLEL_BATCH_THRESHOLD = 1024;
+
+    // Modèle chargé + métadonnées (remplacé d'un bloc)
+    private static final class Loaded {
+        final MappedModel model;
+        final long version;
+        final FileTime modified;
+        Loaded(MappedModel model, long version, FileTime modified) {
+            this.model = model;
+            this.version = version;
+            this.modified = modified;
+        }
+    }
+
+    private final Path modelPath;
+    private final AtomicReference<Loaded> current = new AtomicReference<>();
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final ScheduledExecutorService watcher;
+    private final PredictionCache cache;        // null : pas de cache
+    private final ForkJoinPool predictionPool;  // gros lots, partagé par toutes les requêtes
+
+    public ClassificationServer(Path modelPath, int port, int reloadSeconds) throws IOException {
+        this(modelPath, port, reloadSeconds, 0);
+    }
+
+    /**
+     * @param modelPath fichier modèle (format ModelFile)
+     * @param port port HTTP (0 = port libre)
+     * @param reloadSeconds période de surveillance du fichier (0 = pas de rechargement automatique)
+     * @param cacheSize nb de messages gardés en cache (0 = pas de cache)
+     */
+    public ClassificationServer(Path modelPath, int port, int reloadSeconds, int cacheSize) throws IOException {
+        this.modelPath = modelPath;
+        this.cache = cacheSize > 0 ? new PredictionCache(cacheSize) : null;
+        reload();
+
+        this.predictionPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.requestExecutor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(requestExecutor);
+        server.createContext("/classify", this::handleClassify);
+        server.createContext("/reload", this::handleReload);
+        server.createContext("/health", this::handleHealth);
+
+        if (reloadSeconds > 0) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "model-watcher");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, reloadSeconds, reloadSeconds, TimeUnit.SECONDS);
+        } else {
+            watcher = null;
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) watcher.shutdownNow();
+        server.stop(1);
+        requestExecutor.shutdown();
+        predictionPool.shutdown();
+        current.set(null);   // plus de modèle publié : /health répond « arrêté »
+    }
+
+    /**
+     * Charge le fichier modèle et le publie ; en cas d'erreur l'ancien modèle reste en service.
+     */
+    public synchronized long reload() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(modelPath);
+        MappedModel model = MappedModel.open(modelPath);
+        Loaded previous = current.get();
+        long version = previous == null ? 1 : previous.version + 1;
+        current.set(new Loaded(model, version, modified));
+        return version;
+    }
+
+    private void reloadIfModified() {
+        try {
+            Loaded loaded = current.get();
+            if (loaded == null) return;   // serveur arrêté
+            if (!Files.getLastModifiedTime(modelPath).equals(loaded.modified)) {
+                long version = reload();
+                System.out.println("🔄 Modèle rechargé (version " + version + ")");
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Rechargement impossible, ancien modèle conservé : " + e.getMessage());
+        }
+    }
+
+    private void handleClassify(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                send(ex, 405, "POST attendu\n");
+                return;
+            }
+            List<String> lines = readLines(ex.getRequestBody());
+            if (lines.isEmpty()) {
+                send(ex, 400, "corps vide : un message par ligne\n");
+                return;
+            }
+
+            Loaded loaded = current.get();   // même version du modèle pour toute la requête
+            if (loaded == null) {
+                send(ex, 503, "arrêté\n");
+                return;
+            }
+            Classifier model = loaded.model;
+            // Gros lot : pool du serveur (partagé entre requêtes), sinon dans le thread de la requête
+            boolean parallel = lines.size() >= PARALLEL_BATCH_THRESHOLD;
+            BatchPrediction predictions;
+            if (cache != null) {
+                predictions = parallel ? cache.predictBatch(model, lines, predictionPool) : cache.predictBatch(model, lines, 1);
+            } else {
+                Tokenizer tokenizer = new Tokenizer(Tokenizer.REMOVE_STOPWORDS_BY_DEFAULT);   // comme DataPreprocessor
+                List<List<String>> messages = new ArrayList<>(lines.size());
+                for (String line : lines) messages.add(tokenizer.tokenize(line));
+                predictions = parallel ? model.predictBatch(messages, predictionPool) : model.predictBatch(messages, 1);
+            }
+
+            StringBuilder sb = new StringBuilder(lines.size() * 24);
+            for (int i = 0; i < predictions.size(); i++) {
+                sb.append(predictions.label(i)).append('\t').append(predictions.score(i)).append('\n');
+            }
+            send(ex, 200, sb.toString());
+        } catch (RuntimeException e) {
+            send(ex, 500, "erreur : " + e + "\n");
+        }
+    }
+
+    private void handleReload(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"POST".equals(ex.getRequestMethod())) {
+                send(ex, 405, "POST attendu\n");
+                return;
+            }
+            try {
+                send(ex, 200, "version " + reload() + "\n");
+            } catch (IOException e) {
+                send(ex, 500, "rechargement impossible : " + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    private void handleHealth(HttpExchange ex) throws IOException {
+        try (ex) {
+            Loaded loaded = current.get();
+            if (loaded == null) {
+                send(ex, 503, "arrêté\n");
+                return;
+            }
+            send(ex, 200, "ok version " + loaded.version
+                    + (cache != null ? "\ncache " + cache.stats() : "") + "\n");
+        }
+    }
+
+    // Une ligne non vide = un message
+    private static List<String> readLines(InputStream in) throws IOException {
+        String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        List<String> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) lines.add(line);
+        }
+        return lines;
+    }
+
+    private static void send(HttpExchange ex, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    // Un thread virtuel par requête si le JDK le permet (Java 21+), sinon pool de threads extensible
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * args[0] : fichier modèle (défaut naivebayes_model.bin)
+     * args[1] : port (défaut 8080)
+     * args[2] : période de surveillance du fichier en secondes (défaut 5, 0 = désactivé)
+     * args[3] : taille du cache de prédictions en messages (défaut 0 = désactivé)
+     */
+    public static void main(String[] args) throws Exception {
+        Path modelPath = Paths.get(args.length >= 1 ? args[0] : "naivebayes_model.bin");
+        int port = args.length >= 2 ? Integer.parseInt(args[1]) : 8080;
+        int reloadSeconds = args.length >= 3 ? Integer.parseInt(args[2]) : 5;
+        int cacheSize = args.length >= 4 ? Integer.parseInt(args[3]) : 0;
+
+        ClassificationServer srv = new ClassificationServer(modelPath, port, reloadSeconds, cacheSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(srv::close));
+        srv.start();
+        System.out.println("✅ Serveur de classification sur le port " + srv.port()
+                + " (modèle " + modelPath + ", exécuteur " + srv.requestExecutor.getClass().getSimpleName() + ")");
+    }
+}
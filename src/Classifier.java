@@ -0,0 +1,34 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Interface Classifier
+ * Ce qu'un modèle doit offrir pour prédire : un message, ou un lot de messages en parallèle.
+ * Implémentations thread-safe (lecture seule).
+ */
+public interface Classifier {
+
+    /**
+     * Prédit la classe d'une liste de tokens.
+     */
+    String predict(List<String> tokens);
+
+    /**
+     * Prédit la classe et écrit (classe, log-probabilité jointe) à la position index de out.
+     */
+    void predictInto(List<String> tokens, BatchPrediction out, int index);
+
+    /**
+     * Prédit un lot de messages en parallèle, résultats dans l'ordre d'entrée.
+     */
+    default BatchPrediction predictBatch(List<List<String>> messages, int parallelism) {
+        return BatchPrediction.compute(messages, parallelism, this::predictInto);
+    }
+
+    /**
+     * Prédit un lot de messages sur le pool fourni (ex. celui d'un serveur), résultats dans l'ordre d'entrée.
+     */
+    default BatchPrediction predictBatch(List<List<String>> messages, ForkJoinPool pool) {
+        return BatchPrediction.compute(messages, pool, this::predictInto);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Classe CompiledModel
+ * Version "figée" d'un NaiveBayesModel : toutes les log-probabilités sont
+ * précalculées une seule fois, la prédiction se réduit à des additions dans des tableaux.
+ *
+ * Le résultat est identique au calcul avec lissage de Laplace de NaiveBayesModel
+ * (mêmes valeurs, même ordre d'addition).
+ */
+public final class CompiledModel extends NaiveBayesScorer {
+
+    private final Vocabulary vocabulary;           // dictionnaire mot -> id (id = ligne dans logLikelihoods)
+    private final int numTokens;                   // nb de lignes de la table (ids >= numTokens : mot inconnu)
+    private final String[] labels;                 // classes, indexées par id
+    private final double[] logPriors;              // log P(c)
+    private final double[] unseenLogProbs;         // log P(w|c) pour un mot absent de la classe/vocabulaire
+    private final double[] logLikelihoods;         // log P(w|c), rangé [idMot * nbClasses + c]
+
+    /**
+     * Compile les comptages d'un modèle entraîné.
+     * @param vocabulary dictionnaire des mots (les ids attribués après compilation sont traités comme inconnus)
+     * @param labels classes, indexées par id
+     * @param docCounts nb documents par classe
+     * @param wordCounts nb d'occurrences de chaque mot par classe [classe][idMot]
+     * @param totalWords nb total de mots par classe
+     * @param vocabularySize taille du vocabulaire utilisée pour le lissage
+     * @param alpha constante de lissage (1 = Laplace)
+     */
+    public CompiledModel(Vocabulary vocabulary, String[] labels, int[] docCounts, int[][] wordCounts,
+                         long[] totalWords, int vocabularySize, double alpha) {
+        int numClasses = labels.length;
+
+        this.vocabulary = vocabulary;
+        this.numTokens = vocabulary.size();
+        this.labels = labels.clone();
+        this.logPriors = new double[numClasses];
+        this.unseenLogProbs = new double[numClasses];
+
+        long totalDocs = 0;
+        for (int c : docCounts) {
+            totalDocs += c;
+        }
+
+        this.logLikelihoods = new double[numTokens * numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            logPriors[c] = Math.log((double) docCounts[c] / totalDocs);
+
+            double denominator = totalWords[c] + alpha * vocabularySize;
+            unseenLogProbs[c] = Math.log(alpha / denominator);
+
+            int[] counts = c < wordCounts.length ? wordCounts[c] : new int[0];
+            for (int t = 0; t < numTokens; t++) {
+                int count = t < counts.length ? counts[t] : 0;
+                logLikelihoods[t * numClasses + c] = Math.log((count + alpha) / denominator);
+            }
+        }
+    }
+
+    // Modèle déjà compilé (relu depuis un fichier, voir ModelFile)
+    CompiledModel(Vocabulary vocabulary, String[] labels, double[] logPriors, double[] unseenLogProbs,
+                  double[] logLikelihoods) {
+        this.vocabulary = vocabulary;
+        this.numTokens = vocabulary.size();
+        this.labels = labels;
+        this.logPriors = logPriors;
+        this.unseenLogProbs = unseenLogProbs;
+        this.logLikelihoods = logLikelihoods;
+    }
+
+    @Override
+    int idOf(String token) {
+        return vocabulary.idOf(token);
+    }
+
+    // Ids attribués après compilation (>= numTokens) : mots inconnus
+    @Override
+    void addLogLikelihoods(int tokenId, double[] scores) {
+        int numClasses = labels.length;
+        if (tokenId < 0 || tokenId >= numTokens) {
+            for (int c = 0; c < numClasses; c++) {
+                scores[c] += unseenLogProbs[c];
+            }
+        } else {
+            int row = tokenId * numClasses;
+            for (int c = 0; c < numClasses; c++) {
+                scores[c] += logLikelihoods[row + c];
+            }
+        }
+    }
+
+    /**
+     * Même modèle, les mots inconnus ne contribuant plus au score (log P = 0 au lieu du lissage).
+     * Pour un modèle réduit par FeatureSelector : les mots retirés ne sont pas des indices de classe.
+     */
+    public CompiledModel withUnknownTokensIgnored() {
+        return new CompiledModel(vocabulary, labels, logPriors, new double[labels.length], logLikelihoods);
+    }
+
+    @Override
+    public int numClasses() {
+        return labels.length;
+    }
+
+    public int numTokens() {
+        return numTokens;
+    }
+
+    // Accès en lecture seule pour la sérialisation binaire (ModelFile)
+    Vocabulary vocabulary() {
+        return vocabulary;
+    }
+
+    @Override
+    String label(int c) {
+        return labels[c];
+    }
+
+    @Override
+    double logPrior(int c) {
+        return logPriors[c];
+    }
+
+    double unseenLogProb(int c) {
+        return unseenLogProbs[c];
+    }
+
+    double logLikelihood(int tokenId, int c) {
+        return logLikelihoods[tokenId * labels.length + c];
+    }
+}
@@ -0,0 +1,349 @@
+import java.util.*;
+
+/**
+ * Classe Corpus
+ * Représentation en colonnes d'un ensemble de messages, partagée par le prétraitement, les
+ * entraîneurs et l'évaluation (remplace les objets "label + List<String>" par message) :
+ * - tokens  : un seul int[] avec les ids (dictionnaire vocabulary) de tous les messages bout à bout ;
+ * - offsets : le message i occupe tokens[offsets[i], offsets[i+1]) ;
+ * - labels  : un byte par message, id de classe dans le dictionnaire labels (256 classes au plus).
+ *
+ * Un Corpus est une fenêtre [from, to) sur ces tableaux : slice() et chunks() découpent sans copie
+ * (chunking, plis, train/test). Seuls select() / shuffled() (réordonnancement) copient les colonnes.
+ * Les colonnes ne sont jamais modifiées après construction : un Corpus est partageable entre threads.
+ */
+public final class Corpus {
+
+    private final int[] tokens;
+    private final int[] offsets;
+    private final byte[] labelIds;
+    private final Vocabulary vocabulary;
+    private final Vocabulary labels;
+    private final int from;
+    private final int to;
+
+    private Corpus(int[] tokens, int[] offsets, byte[] labelIds, Vocabulary vocabulary, Vocabulary labels,
+                   int from, int to) {
+        this.tokens = tokens;
+        this.offsets = offsets;
+        this.labelIds = labelIds;
+        this.vocabulary = vocabulary;
+        this.labels = labels;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Corpus vide sur ces dictionnaires.
+     */
+    public static Corpus empty(Vocabulary vocabulary, Vocabulary labels) {
+        return new Corpus(new int[0], new int[1], new byte[0], vocabulary, labels, 0, 0);
+    }
+
+    // Nb de messages
+    public int size() {
+        return to - from;
+    }
+
+    public boolean isEmpty() {
+        return to == from;
+    }
+
+    public Vocabulary vocabulary() {
+        return vocabulary;
+    }
+
+    public Vocabulary labels() {
+        return labels;
+    }
+
+    // Id de classe du message i
+    public int label(int i) {
+        return labelIds[index(i)] & 0xff;
+    }
+
+    // Classe du message i
+    public String labelName(int i) {
+        return labels.token(label(i));
+    }
+
+    // Nb de tokens du message i
+    public int length(int i) {
+        int m = index(i);
+        return offsets[m + 1] - offsets[m];
+    }
+
+    /**
+     * Début des tokens du message i dans tokenArray() (fin : start(i + 1), i + 1 pouvant valoir size()).
+     */
+    public int start(int i) {
+        if (i < 0 || i > size()) throw new IndexOutOfBoundsException("message " + i + " / " + size());
+        return offsets[from + i];
+    }
+
+    /**
+     * Tableau partagé des ids de tokens (lecture seule), à parcourir entre start(i) et start(i + 1).
+     */
+    public int[] tokenArray() {
+        return tokens;
+    }
+
+    // Tokens du message i, vue en Strings sur le dictionnaire (pas de copie)
+    public List<String> tokens(int i) {
+        int m = index(i);
+        return new TokenView(tokens, offsets[m], offsets[m + 1], vocabulary);
+    }
+
+    // Tous les messages en vues List<String> (pour Classifier.predictBatch)
+    public List<List<String>> messages() {
+        return new AbstractList<List<String>>() {
+            @Override
+            public List<String> get(int i) {
+                return tokens(i);
+            }
+
+            @Override
+            public int size() {
+                return Corpus.this.size();
+            }
+        };
+    }
+
+    // Nb total de tokens des messages
+    public long tokenCount() {
+        return offsets[to] - offsets[from];
+    }
+
+    /**
+     * Messages [fromIndex, toIndex), sans copie.
+     */
+    public Corpus slice(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("[" + fromIndex + ", " + toIndex + ") / " + size());
+        }
+        return new Corpus(tokens, offsets, labelIds, vocabulary, labels, from + fromIndex, from + toIndex);
+    }
+
+    /**
+     * numChunks tranches consécutives de même nb de messages (à un près), sans copie.
+     */
+    public List<Corpus> chunks(int numChunks) {
+        if (numChunks <= 0) throw new IllegalArgumentException("numChunks must be > 0");
+        List<Corpus> chunks = new ArrayList<>(numChunks);
+        int n = size();
+        int start = 0;
+        for (int c = 0; c < numChunks; c++) {
+            int end = start + n / numChunks + (c < n % numChunks ? 1 : 0);
+            chunks.add(slice(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Copie avec les messages order[0], order[1], ... (mêmes dictionnaires).
+     */
+    public Corpus select(int[] order) {
+        int total = 0;
+        for (int i : order) total += length(i);
+        int[] newTokens = new int[total];
+        int[] newOffsets = new int[order.length + 1];
+        byte[] newLabels = new byte[order.length];
+        int pos = 0;
+        for (int k = 0; k < order.length; k++) {
+            int m = index(order[k]);
+            int len = offsets[m + 1] - offsets[m];
+            System.arraycopy(tokens, offsets[m], newTokens, pos, len);
+            pos += len;
+            newOffsets[k + 1] = pos;
+            newLabels[k] = labelIds[m];
+        }
+        return new Corpus(newTokens, newOffsets, newLabels, vocabulary, labels, 0, order.length);
+    }
+
+    /**
+     * Copie mélangée de façon reproductible (même permutation que Collections.shuffle d'une liste
+     * de même taille avec la même graine).
+     */
+    public Corpus shuffled(long seed) {
+        List<Integer> order = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) order.add(i);
+        Collections.shuffle(order, new Random(seed));
+        return select(order.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Concatène des corpus de mêmes dictionnaires (ex. plages lues en parallèle), dans l'ordre.
+     */
+    public static Corpus concat(List<Corpus> parts, Vocabulary vocabulary, Vocabulary labels) {
+        long total = 0;
+        int count = 0;
+        for (Corpus part : parts) {
+            if (part.vocabulary != vocabulary || part.labels != labels) {
+                throw new IllegalArgumentException("concat needs shared vocabulary and labels");
+            }
+            total += part.tokenCount();
+            count += part.size();
+        }
+        if (total > Integer.MAX_VALUE - 8) throw new IllegalStateException("corpus trop grand : " + total + " tokens");
+
+        int[] newTokens = new int[(int) total];
+        int[] newOffsets = new int[count + 1];
+        byte[] newLabels = new byte[count];
+        int pos = 0;
+        int k = 0;
+        for (Corpus part : parts) {
+            int base = part.offsets[part.from];
+            System.arraycopy(part.tokens, base, newTokens, pos, (int) part.tokenCount());
+            System.arraycopy(part.labelIds, part.from, newLabels, k, part.size());
+            for (int i = 1; i <= part.size(); i++) {
+                newOffsets[k + i] = pos + part.offsets[part.from + i] - base;
+            }
+            pos += (int) part.tokenCount();
+            k += part.size();
+        }
+        return new Corpus(newTokens, newOffsets, newLabels, vocabulary, labels, 0, count);
+    }
+
+    /**
+     * Même corpus exprimé dans les dictionnaires fournis (mots et classes ajoutés dans l'ordre de première
+     * apparition). Sans copie si les ids sont inchangés (ex. dictionnaires neufs et ids déjà dans cet ordre).
+     */
+    public Corpus remap(Vocabulary vocabulary, Vocabulary labels) {
+        if (vocabulary == this.vocabulary && labels == this.labels) return this;
+        int[] tokenMap = new int[this.vocabulary.size()];
+        Arrays.fill(tokenMap, -1);
+        int[] labelMap = new int[this.labels.size()];
+        Arrays.fill(labelMap, -1);
+        boolean identity = true;
+        int begin = offsets[from];
+        int end = offsets[to];
+        for (int m = from; m < to; m++) {
+            int label = labelIds[m] & 0xff;
+            if (labelMap[label] < 0) {
+                labelMap[label] = labels.intern(this.labels.token(label));
+                if (labelMap[label] > 0xff) throw new IllegalStateException("plus de 256 classes : " + labelMap[label]);
+            }
+            identity &= labelMap[label] == label;
+        }
+        for (int k = begin; k < end; k++) {
+            int id = tokens[k];
+            if (tokenMap[id] < 0) tokenMap[id] = vocabulary.intern(this.vocabulary.token(id));
+            identity &= tokenMap[id] == id;
+        }
+        if (identity) return new Corpus(tokens, offsets, labelIds, vocabulary, labels, from, to);
+
+        int[] newTokens = new int[end - begin];
+        for (int k = begin; k < end; k++) newTokens[k - begin] = tokenMap[tokens[k]];
+        int[] newOffsets = new int[size() + 1];
+        byte[] newLabels = new byte[size()];
+        for (int i = 0; i < size(); i++) {
+            newOffsets[i + 1] = offsets[from + i + 1] - begin;
+            newLabels[i] = (byte) labelMap[labelIds[from + i] & 0xff];
+        }
+        return new Corpus(newTokens, newOffsets, newLabels, vocabulary, labels, 0, size());
+    }
+
+    /**
+     * Corpus sur des colonnes existantes (ex. relues d'un fichier) ; IllegalArgumentException si elles
+     * sont incohérentes (offsets non croissants, ids hors des dictionnaires).
+     */
+    static Corpus of(int[] tokens, int[] offsets, byte[] labelIds, Vocabulary vocabulary, Vocabulary labels) {
+        int size = labelIds.length;
+        if (offsets.length != size + 1 || offsets[0] != 0 || offsets[size] != tokens.length) {
+            throw new IllegalArgumentException("offsets invalides");
+        }
+        for (int i = 0; i < size; i++) {
+            if (offsets[i + 1] < offsets[i]) throw new IllegalArgumentException("offsets non croissants au message " + i);
+            if ((labelIds[i] & 0xff) >= labels.size()) throw new IllegalArgumentException("classe inconnue au message " + i);
+        }
+        for (int id : tokens) {
+            if (id < 0 || id >= vocabulary.size()) throw new IllegalArgumentException("id de mot hors limites : " + id);
+        }
+        return new Corpus(tokens, offsets, labelIds, vocabulary, labels, 0, size);
+    }
+
+    private int index(int i) {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("message " + i + " / " + size());
+        return from + i;
+    }
+
+    /**
+     * Construction message par message (tableaux agrandis par doublement). Non thread-safe.
+     */
+    public static final class Builder {
+        private final Vocabulary vocabulary;
+        private final Vocabulary labels;
+        private int[] tokens = new int[1024];
+        private int[] offsets = new int[65];
+        private byte[] labelIds = new byte[64];
+        private int size = 0;
+
+        public Builder(Vocabulary vocabulary, Vocabulary labels) {
+            this.vocabulary = vocabulary;
+            this.labels = labels;
+        }
+
+        // Message déjà converti en ids (ids[0, count)), de classe labelId
+        public Builder add(int labelId, int[] ids, int count) {
+            if (labelId < 0 || labelId > 0xff) throw new IllegalStateException("plus de 256 classes : " + labelId);
+            int pos = offsets[size];
+            if (pos + count > tokens.length) {
+                tokens = Arrays.copyOf(tokens, Math.max(pos + count, tokens.length * 2));
+            }
+            System.arraycopy(ids, 0, tokens, pos, count);
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                labelIds = Arrays.copyOf(labelIds, offsets.length - 1);
+            }
+            labelIds[size] = (byte) labelId;
+            offsets[++size] = pos + count;
+            return this;
+        }
+
+        // Message en Strings : classe et tokens ajoutés aux dictionnaires (tokens vides ignorés)
+        public Builder add(String label, List<String> messageTokens) {
+            int[] ids = new int[messageTokens.size()];
+            int count = 0;
+            for (String token : messageTokens) {
+                if (token == null || token.isEmpty()) continue;
+                ids[count++] = vocabulary.intern(token);
+            }
+            return add(labels.intern(label), ids, count);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public Corpus build() {
+            return new Corpus(tokens, offsets, labelIds, vocabulary, labels, 0, size);
+        }
+    }
+
+    // Vue List<String> sur une plage du tableau des ids
+    private static final class TokenView extends AbstractList<String> implements RandomAccess {
+        private final int[] ids;
+        private final int start;
+        private final int end;
+        private final Vocabulary vocabulary;
+
+        TokenView(int[] ids, int start, int end, Vocabulary vocabulary) {
+            this.ids = ids;
+            this.start = start;
+            this.end = end;
+            this.vocabulary = vocabulary;
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index);
+            return vocabulary.token(ids[start + index]);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
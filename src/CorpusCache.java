@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Classe CorpusCache
+ * Cache disque des corpus tokenisés (Corpus) : relire un fichier déjà vu ne refait ni l'analyse
+ * ni la tokenisation, seulement la lecture de tableaux binaires.
+ *
+ * Clé : SHA-256 de l'identité du fichier source (chemin réel, fileKey = périphérique + inode sous Unix,
+ * taille, date de modification), des options de prétraitement (format de ligne, stopwords) et de la
+ * configuration du Tokenizer (liste des stopwords, FORMAT) : calculée sans lire le fichier. Le contenu
+ * du fichier peut y être ajouté (naivebayes.cache.contentHash=true, une lecture complète en plus).
+ * Un fichier modifié ou une option différente donne une autre clé : pas d'invalidation explicite,
+ * une entrée périmée n'est plus lue et finit évincée (nettoyage : java CorpusCache clear).
+ *
+ * Format d'une entrée (<clé>.corpus, little-endian) :
+ *   magic "NBCC" (int)  version  nb messages  nb tokens  nb classes  nb mots
+ *   classes puis mots (longueur int + octets UTF-8)
+ *   offsets (int x (nb messages + 1))  classes des messages (byte x nb messages)  ids (int x nb tokens)
+ *   CRC32 de tout ce qui précède (int)
+ * Les mots et classes sont numérotés dans l'ordre de première apparition : un corpus relu dans des
+ * dictionnaires neufs est utilisé sans copie (Corpus.remap).
+ *
+ * Propriétés système :
+ * - naivebayes.cache : true pour activer le cache (désactivé par défaut : les mesures de chargement,
+ *   LoadBenchmark, ScalabilityBenchmark, Metrics, portent sur l'analyse du texte) ;
+ * - naivebayes.cache.dir : répertoire des entrées (défaut : java.io.tmpdir/naivebayes-cache-<utilisateur>) ;
+ * - naivebayes.cache.maxBytes : taille maximale du cache (défaut 1 Gio), entrées les moins récemment
+ *   utilisées supprimées au-delà ;
+ * - naivebayes.cache.contentHash : true pour inclure le contenu du fichier dans la clé.
+ * Le répertoire est créé en 0700 et refusé (cache ignoré) s'il n'appartient pas à l'utilisateur, est un
+ * lien symbolique ou est modifiable par d'autres : personne d'autre ne peut y déposer une entrée.
+ * Écriture atomique (fichier temporaire puis renommage) ; une entrée illisible est supprimée et
+ * reconstruite, et une erreur d'écriture n'empêche jamais le chargement.
+ */
+public final class CorpusCache {
+
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("naivebayes.cache", "false"));
+    static final long MAX_BYTES = Long.getLong("naivebayes.cache.maxBytes", 1L << 30);
+    static final boolean CONTENT_HASH = Boolean.getBoolean("naivebayes.cache.contentHash");
+
+    static final int MAGIC = 0x4343424E;   // "NBCC" lu en little-endian
+    static final int VERSION = 1;
+
+    // À incrémenter si la tokenisation change (la clé doit alors changer)
+    static final int FORMAT = 1;
+
+    /**
+     * Construction du corpus en cas d'absence du cache.
+     */
+    public interface Source {
+        Corpus load() throws IOException;
+    }
+
+    private CorpusCache() {
+    }
+
+    /**
+     * Corpus de source prétraité selon options : relu du cache s'il existe, sinon construit par
+     * loader et mis en cache. Le corpus retourné a ses propres dictionnaires.
+     * @param options options de prétraitement qui déterminent le résultat (ex. "tsv;stopwords=true")
+     */
+    public static Corpus get(Path source, String options, Source loader) throws IOException {
+        if (!ENABLED) return loader.load();
+        Path dir;
+        try {
+            dir = directory();
+        } catch (IOException e) {
+            System.err.println("⚠️ Cache de corpus ignoré : " + e.getMessage());
+            return loader.load();
+        }
+        Path entry = dir.resolve(key(source, options) + ".corpus");
+
+        if (Files.exists(entry)) {
+            try {
+                Corpus corpus = read(entry);
+                touch(entry);
+                return corpus;
+            } catch (IOException e) {
+                System.err.println("⚠️ Cache de corpus illisible, reconstruit : " + entry + " (" + e.getMessage() + ")");
+                Files.deleteIfExists(entry);
+            }
+        }
+
+        Corpus corpus = loader.load();
+        try {
+            write(corpus, entry);
+            evict(dir, MAX_BYTES);
+        } catch (IOException e) {
+            System.err.println("⚠️ Cache de corpus non écrit : " + entry + " (" + e.getMessage() + ")");
+        }
+        return corpus;
+    }
+
+    /**
+     * Répertoire du cache, créé en 0700 si besoin ; IOException s'il n'est pas sûr (autre propriétaire,
+     * lien symbolique, écriture permise au groupe ou aux autres).
+     */
+    static Path directory() throws IOException {
+        String configured = System.getProperty("naivebayes.cache.dir");
+        Path dir = configured != null ? Paths.get(configured)
+                : Paths.get(System.getProperty("java.io.tmpdir"), "naivebayes-cache-" + System.getProperty("user.name"));
+        boolean posix = dir.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.exists(dir, LinkOption.NOFOLLOW_LINKS)) {
+            try {
+                if (posix) {
+                    Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+                } else {
+                    Files.createDirectories(dir);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // créé entre-temps (autre processus) : vérifié ci-dessous
+            }
+        }
+
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException("pas un répertoire (ou lien symbolique) : " + dir);
+        }
+        UserPrincipal owner = Files.getOwner(dir, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal user = dir.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(user)) throw new IOException("répertoire de " + owner.getName() + " : " + dir);
+        if (posix) {
+            Set<PosixFilePermission> perms = Files.getPosixFilePermissions(dir, LinkOption.NOFOLLOW_LINKS);
+            if (perms.contains(PosixFilePermission.GROUP_WRITE) || perms.contains(PosixFilePermission.OTHERS_WRITE)) {
+                throw new IOException("répertoire modifiable par d'autres utilisateurs ("
+                        + PosixFilePermissions.toString(perms) + ") : " + dir);
+            }
+        }
+        return dir;
+    }
+
+    /**
+     * Clé hexadécimale : SHA-256 de (FORMAT, stopwords du Tokenizer, options, identité de source
+     * [chemin réel, fileKey, taille, date de modification], puis contenu de source si CONTENT_HASH).
+     */
+    static String key(Path source, String options) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        sha.update(("corpus-cache " + FORMAT + "\n" + String.join(",", Tokenizer.STOPWORDS) + "\n" + options + "\n"
+                + source.toRealPath() + "\n" + attrs.fileKey() + "\n" + attrs.size() + "\n"
+                + attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        if (CONTENT_HASH) {
+            byte[] buf = new byte[1 << 16];
+            try (InputStream in = Files.newInputStream(source)) {
+                int n;
+                while ((n = in.read(buf)) > 0) sha.update(buf, 0, n);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : sha.digest()) hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+
+    /**
+     * Écrit corpus dans path (ids renumérotés par ordre de première apparition).
+     */
+    static void write(Corpus corpus, Path path) throws IOException {
+        Corpus c = corpus.remap(new Vocabulary(), new Vocabulary());
+        Vocabulary vocabulary = c.vocabulary();
+        Vocabulary labels = c.labels();
+        int size = c.size();
+        int numTokens = (int) c.tokenCount();
+
+        List<byte[]> strings = new ArrayList<>(labels.size() + vocabulary.size());
+        long stringBytes = 0;
+        for (int i = 0; i < labels.size(); i++) strings.add(labels.token(i).getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < vocabulary.size(); i++) strings.add(vocabulary.token(i).getBytes(StandardCharsets.UTF_8));
+        for (byte[] s : strings) stringBytes += 4 + s.length;
+
+        long length = 24 + stringBytes + 4L * (size + 1) + size + 4L * numTokens + 4;
+        if (length > Math.min(MAX_BYTES, Integer.MAX_VALUE - 8)) {
+            throw new IOException("corpus trop grand pour le cache : " + length + " octets");
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(numTokens).putInt(labels.size()).putInt(vocabulary.size());
+        for (byte[] s : strings) buf.putInt(s.length).put(s);
+
+        int base = c.start(0);
+        for (int i = 0; i <= size; i++) buf.putInt(c.start(i) - base);
+        for (int i = 0; i < size; i++) buf.put((byte) c.label(i));
+        buf.asIntBuffer().put(c.tokenArray(), base, numTokens);
+        buf.position(buf.position() + 4 * numTokens);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), 0, buf.position());
+        buf.putInt((int) crc.getValue());
+        buf.flip();
+
+        Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Entrée relue : date de modification mise à jour (ordre d'éviction LRU)
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // sans effet sur la lecture
+        }
+    }
+
+    /**
+     * Supprime les entrées les moins récemment utilisées jusqu'à ce que le cache tienne dans maxBytes.
+     */
+    static void evict(Path dir, long maxBytes) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attrs = new HashMap<>();
+        long total = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (!p.getFileName().toString().endsWith(".corpus")) continue;
+                try {
+                    BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    entries.add(p);
+                    attrs.put(p, a);
+                    total += a.size();
+                } catch (NoSuchFileException e) {
+                    // supprimée entre-temps (autre processus)
+                }
+            }
+        }
+
+        entries.sort(Comparator.comparing(p -> attrs.get(p).lastModifiedTime()));
+        for (Path p : entries) {
+            if (total <= maxBytes) break;
+            Files.deleteIfExists(p);
+            total -= attrs.get(p).size();
+        }
+    }
+
+    /**
+     * Relit une entrée (dictionnaires neufs) ; IOException si elle est tronquée ou corrompue.
+     */
+    static Corpus read(Path path) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buf.remaining() < 28 || buf.getInt() != MAGIC) throw new IOException("pas une entrée de cache (magic)");
+            int version = buf.getInt();
+            if (version != VERSION) throw new IOException("version non supportée : " + version);
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), 0, buf.limit() - 4);
+            if ((int) crc.getValue() != buf.getInt(buf.limit() - 4)) throw new IOException("CRC invalide");
+
+            int size = count(buf.getInt());
+            int numTokens = count(buf.getInt());
+            int numClasses = count(buf.getInt());
+            int vocabularySize = count(buf.getInt());
+            Vocabulary labels = new Vocabulary();
+            Vocabulary vocabulary = new Vocabulary();
+            for (int i = 0; i < numClasses; i++) labels.intern(readString(buf));
+            for (int i = 0; i < vocabularySize; i++) vocabulary.intern(readString(buf));
+            if (labels.size() != numClasses || vocabulary.size() != vocabularySize) {
+                throw new IOException("dictionnaire invalide (doublons)");
+            }
+
+            int[] offsets = new int[size + 1];
+            buf.asIntBuffer().get(offsets);
+            buf.position(buf.position() + 4 * offsets.length);
+            byte[] labelIds = new byte[size];
+            buf.get(labelIds);
+            int[] tokens = new int[numTokens];
+            buf.asIntBuffer().get(tokens);
+            buf.position(buf.position() + 4 * numTokens);
+            if (buf.remaining() != 4) throw new IOException("longueur incohérente");
+            return Corpus.of(tokens, offsets, labelIds, vocabulary, labels);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, colonnes incohérentes (Corpus.of)
+            throw new IOException("entrée de cache invalide : " + e.getMessage(), e);
+        }
+    }
+
+    private static int count(int n) throws IOException {
+        if (n < 0 || n > Integer.MAX_VALUE - 8) throw new IOException("taille invalide : " + n);
+        return n;
+    }
+
+    private static String readString(ByteBuffer buf) throws IOException {
+        byte[] bytes = new byte[count(buf.getInt())];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * java CorpusCache [list|clear] : liste ou supprime les entrées du répertoire de cache.
+     */
+    public static void main(String[] args) throws IOException {
+        String command = args.length >= 1 ? args[0] : "list";
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) {
+            System.out.println("Cache vide : " + dir);
+            return;
+        }
+        long total = 0;
+        int entries = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (!p.getFileName().toString().endsWith(".corpus")) continue;
+                long bytes = Files.size(p);
+                if (command.equals("clear")) Files.delete(p);
+                else System.out.println(p.getFileName() + "\t" + bytes);
+                total += bytes;
+                entries++;
+            }
+        }
+        System.out.println((command.equals("clear") ? "Supprimé : " : "Total : ") + entries + " entrées, "
+                + total + " octets (" + dir + ")");
+    }
+}
@@ -0,0 +1,203 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Classe CrossValidator
+ * Validation croisée en k plis et recherche sur grille (alpha de lissage, option stopwords)
+ * au prix d'environ un seul entraînement :
+ * - chaque pli est compté une seule fois (plis comptés en parallèle, dictionnaires partagés) ;
+ * - total = somme des plis ; le modèle du pli f est construit sur total - pli f (PartialResult.minus),
+ *   identique à un entraînement sur les k-1 autres plis ;
+ * - toutes les combinaisons pli x alpha sont évaluées en parallèle.
+ * Le chargement (tokenisation) est refait une fois par option stopwords.
+ *
+ * Plis stratifiés : documents mélangés (graine fixe), puis répartis tour à tour classe par classe ;
+ * le corpus est réordonné une fois pli par pli, chaque pli est une tranche (Corpus.slice).
+ */
+public final class CrossValidator {
+
+    /**
+     * Résultat d'un réglage (option stopwords, alpha) sur les k plis.
+     */
+    public static final class Result {
+        public final boolean removeStopwords;
+        public final double alpha;
+        public final double[] foldAccuracies;
+
+        Result(boolean removeStopwords, double alpha, double[] foldAccuracies) {
+            this.removeStopwords = removeStopwords;
+            this.alpha = alpha;
+            this.foldAccuracies = foldAccuracies;
+        }
+
+        public double meanAccuracy() {
+            double sum = 0;
+            for (double a : foldAccuracies) sum += a;
+            return sum / foldAccuracies.length;
+        }
+
+        public double stdAccuracy() {
+            double mean = meanAccuracy();
+            double sum = 0;
+            for (double a : foldAccuracies) sum += (a - mean) * (a - mean);
+            return foldAccuracies.length < 2 ? 0 : Math.sqrt(sum / (foldAccuracies.length - 1));
+        }
+    }
+
+    private final int k;
+    private final long seed;
+    private final int parallelism;
+
+    /**
+     * @param k nb de plis (>= 2)
+     * @param seed graine du mélange des documents
+     * @param parallelism nb de threads
+     */
+    public CrossValidator(int k, long seed, int parallelism) {
+        if (k < 2 || parallelism <= 0) throw new IllegalArgumentException("k must be >= 2 and parallelism > 0");
+        this.k = k;
+        this.seed = seed;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Grille complète sur le fichier : une entrée par (option stopwords, alpha), dans l'ordre des paramètres.
+     */
+    public List<Result> sweep(Path path, double[] alphas, boolean[] stopwordOptions) throws Exception {
+        List<Result> results = new ArrayList<>();
+        for (boolean removeStopwords : stopwordOptions) {
+            Vocabulary vocabulary = new Vocabulary();
+            Vocabulary labels = new Vocabulary();
+            Corpus data = MappedTsvReader.load(path, vocabulary, labels, parallelism, removeStopwords);
+            results.addAll(sweep(data, vocabulary, labels, alphas, removeStopwords));
+        }
+        return results;
+    }
+
+    /**
+     * Grille sur alpha pour des données déjà chargées avec vocabulary / labels.
+     */
+    public List<Result> sweep(Corpus data, Vocabulary vocabulary, Vocabulary labels, double[] alphas,
+                              boolean removeStopwords) throws InterruptedException, ExecutionException {
+        List<Corpus> folds = folds(data);
+        // Pool partagé (SharedPools) : pas de création de threads à chaque balayage
+        ForkJoinPool pool = SharedPools.get(parallelism);
+        // 1) Comptage de chaque pli, une seule fois
+        List<Future<PartialResult>> counted = new ArrayList<>();
+        for (Corpus fold : folds) {
+            counted.add(pool.submit(new DataChunkTrainer(fold, vocabulary, labels)));
+        }
+        PartialResult[] foldCounts = new PartialResult[k];
+        PartialResult total = new PartialResult(vocabulary, labels);
+        for (int f = 0; f < k; f++) {
+            foldCounts[f] = counted.get(f).get();
+            total.mergeIn(foldCounts[f]);
+        }
+
+        // 2) Comptages d'entraînement de chaque pli par soustraction
+        List<Future<PartialResult>> training = new ArrayList<>();
+        for (int f = 0; f < k; f++) {
+            PartialResult held = foldCounts[f];
+            training.add(pool.submit(() -> total.minus(held)));
+        }
+        PartialResult[] trainCounts = new PartialResult[k];
+        for (int f = 0; f < k; f++) trainCounts[f] = training.get(f).get();
+
+        // 3) Évaluation de toutes les combinaisons pli x alpha
+        List<Future<Double>> evaluations = new ArrayList<>();
+        for (double alpha : alphas) {
+            for (int f = 0; f < k; f++) {
+                PartialResult counts = trainCounts[f];
+                Corpus fold = folds.get(f);
+                evaluations.add(pool.submit(() -> accuracy(new NaiveBayesModel(counts, alpha).compile(), fold)));
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        Iterator<Future<Double>> it = evaluations.iterator();
+        for (double alpha : alphas) {
+            double[] accuracies = new double[k];
+            for (int f = 0; f < k; f++) accuracies[f] = it.next().get();
+            results.add(new Result(removeStopwords, alpha, accuracies));
+        }
+        return results;
+    }
+
+    // Plis stratifiés : mélange, puis distribution tour à tour des documents de chaque classe
+    List<Corpus> folds(Corpus data) {
+        List<Integer> shuffled = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); i++) shuffled.add(i);
+        Collections.shuffle(shuffled, new Random(seed));
+        Map<String, List<Integer>> byLabel = new TreeMap<>();
+        for (int i : shuffled) byLabel.computeIfAbsent(data.labelName(i), l -> new ArrayList<>()).add(i);
+
+        List<List<Integer>> assigned = new ArrayList<>();
+        for (int f = 0; f < k; f++) assigned.add(new ArrayList<>());
+        int next = 0;
+        for (List<Integer> docs : byLabel.values()) {
+            for (int i : docs) {
+                assigned.get(next).add(i);
+                next = (next + 1) % k;
+            }
+        }
+
+        // Une seule copie, pli après pli ; chaque pli est ensuite une tranche
+        int[] order = new int[data.size()];
+        int[] bounds = new int[k + 1];
+        int pos = 0;
+        for (int f = 0; f < k; f++) {
+            for (int i : assigned.get(f)) order[pos++] = i;
+            bounds[f + 1] = pos;
+        }
+        Corpus grouped = data.select(order);
+        List<Corpus> folds = new ArrayList<>(k);
+        for (int f = 0; f < k; f++) folds.add(grouped.slice(bounds[f], bounds[f + 1]));
+        return folds;
+    }
+
+    private static double accuracy(CompiledModel model, Corpus fold) {
+        int correct = 0;
+        for (int i = 0; i < fold.size(); i++) {
+            if (fold.labelName(i).equals(model.predict(fold.tokens(i)))) correct++;
+        }
+        return fold.isEmpty() ? 0 : (double) correct / fold.size();
+    }
+
+    /**
+     * Recherche sur grille et affichage CSV :
+     * stopwords,alpha,mean_accuracy,std_accuracy,min_accuracy,max_accuracy
+     * args[0] : train.tsv, args[1] : k (défaut 10), args[2] : alphas (défaut 0.01,0.1,0.25,0.5,1,2),
+     * args[3] : options stopwords (défaut true,false), args[4] : threads, args[5] : graine (défaut 42)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java CrossValidator <train.tsv> [k] [alphas, ex. 0.1,0.5,1] [stopwords, ex. true,false] [threads] [seed]");
+            System.exit(1);
+        }
+        int k = args.length >= 2 ? Integer.parseInt(args[1]) : 10;
+        double[] alphas = Arrays.stream((args.length >= 3 ? args[2] : "0.01,0.1,0.25,0.5,1,2").split(","))
+                .mapToDouble(s -> Double.parseDouble(s.trim())).toArray();
+        String[] options = (args.length >= 4 ? args[3] : "true,false").split(",");
+        boolean[] stopwordOptions = new boolean[options.length];
+        for (int i = 0; i < options.length; i++) stopwordOptions[i] = Boolean.parseBoolean(options[i].trim());
+        int threads = args.length >= 5 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length >= 6 ? Long.parseLong(args[5]) : 42;
+
+        long t0 = System.nanoTime();
+        List<Result> results = new CrossValidator(k, seed, threads).sweep(Paths.get(args[0]), alphas, stopwordOptions);
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+
+        System.out.println("stopwords,alpha,mean_accuracy,std_accuracy,min_accuracy,max_accuracy");
+        Result best = null;
+        for (Result r : results) {
+            System.out.printf(Locale.ROOT, "%b,%s,%.4f,%.4f,%.4f,%.4f%n", r.removeStopwords, r.alpha,
+                    r.meanAccuracy(), r.stdAccuracy(), Arrays.stream(r.foldAccuracies).min().orElse(0),
+                    Arrays.stream(r.foldAccuracies).max().orElse(0));
+            if (best == null || r.meanAccuracy() > best.meanAccuracy()) best = r;
+        }
+        System.err.printf(Locale.ROOT, "⏱ %d plis x %d réglages en %d ms ; meilleur : stopwords=%b alpha=%s (%.4f)%n",
+                k, results.size(), ms, best.removeStopwords, best.alpha, best.meanAccuracy());
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.concurrent.Callable;
+
+/**
+ * Classe DataChunkTrainer
+ * Callable qui prend un chunk (tranche d'un Corpus) et renvoie un PartialResult
+ */
+class DataChunkTrainer implements Callable<PartialResult> {
+    private final Corpus chunk;
+    private final Vocabulary vocabulary;
+    private final Vocabulary labels;
+
+    public DataChunkTrainer(Corpus chunk) {
+        this(chunk, new Vocabulary(), new Vocabulary());
+    }
+
+    // Dictionnaires partagés entre chunks : les résultats partiels se fusionnent par addition de tableaux
+    public DataChunkTrainer(Corpus chunk, Vocabulary vocabulary, Vocabulary labels) {
+        this.chunk = chunk;
+        this.vocabulary = vocabulary;
+        this.labels = labels;
+    }
+
+    @Override
+    public PartialResult call() {
+        if (Metrics.ENABLED) return timedCall();
+        PartialResult pr = new PartialResult(vocabulary, labels);
+        accumulate(pr, chunk);
+        return pr;
+    }
+
+    // Même travail, avec durée, nb de tokens et octets alloués du chunk (Metrics)
+    private PartialResult timedCall() {
+        long allocated = Metrics.allocatedBytes();
+        long t0 = System.nanoTime();
+        PartialResult pr = new PartialResult(vocabulary, labels);
+        accumulate(pr, chunk);
+        long nanos = System.nanoTime() - t0;
+        long allocatedAfter = Metrics.allocatedBytes();
+        Metrics.recordChunk(chunk.size(), chunk.tokenCount(), nanos, allocated < 0 ? -1 : allocatedAfter - allocated);
+        return pr;
+    }
+
+    // Ajoute les comptages de chunk dans pr (utilisé aussi par les workers du mode streaming)
+    static void accumulate(PartialResult pr, Corpus chunk) {
+        // Mêmes dictionnaires : ids utilisés tels quels, sans recherche par String
+        boolean sameIds = chunk.vocabulary() == pr.vocabulary;
+        boolean sameLabels = chunk.labels() == pr.labels;
+        int[] tokens = chunk.tokenArray();
+        for (int i = 0; i < chunk.size(); i++) {
+            int label = sameLabels ? chunk.label(i) : pr.labels.intern(chunk.labelName(i));
+            pr.addDocument(label);
+
+            int end = chunk.start(i + 1);
+            for (int k = chunk.start(i); k < end; k++) {
+                pr.addToken(label, sameIds ? tokens[k] : pr.vocabulary.intern(chunk.vocabulary().token(tokens[k])));
+            }
+        }
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * DistributedTrainer.java
+ *
+ * Entraînement multi-processus avec un coordinateur :
+ * - le coordinateur découpe le fichier en plages d'octets alignées sur les lignes (MappedTsvReader.shards) ;
+ * - chaque plage est comptée par un worker, une JVM séparée lancée par le coordinateur
+ *   (au plus maxWorkers en même temps) ;
+ * - le worker se connecte au coordinateur (socket TCP, port propre à la tentative) et renvoie son
+ *   PartialResult au format PartialResultCodec (dictionnaires inclus, CRC32), précédé du jeton aléatoire
+ *   de la tentative (reçu sur son entrée standard) et de la longueur du résultat : une connexion sans
+ *   le bon jeton (autre processus local) est ignorée ;
+ * - le coordinateur fusionne les résultats dans l'ordre des plages (ids déterministes) ;
+ * - un worker qui échoue (code de sortie, connexion, délai dépassé, CRC) est relancé,
+ *   jusqu'à maxAttempts tentatives par plage.
+ *
+ * Seuls le chemin du fichier et la plage sont transmis au worker : pour répartir sur plusieurs
+ * machines, il suffit que le fichier y soit accessible au même chemin et que le worker puisse
+ * joindre l'adresse du coordinateur.
+ *
+ * Propriétés système :
+ * - naivebayes.distributed.workerJvmOptions : options des JVM workers (ex. "-Xmx512m") ;
+ * - naivebayes.distributed.failShards : plages (ex. "0,2") dont la 1re tentative échoue, pour
+ *   tester la reprise (transmise aux workers).
+ */
+public final class DistributedTrainer {
+
+    private static final String FAIL_SHARDS = "naivebayes.distributed.failShards";
+    private static final String WORKER_JVM_OPTIONS = "naivebayes.distributed.workerJvmOptions";
+    private static final SecureRandom RANDOM = new SecureRandom();
+    // Délai de lecture du jeton : un client muet ne bloque pas l'attente du vrai worker
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 2_000;
+
+    private final int maxWorkers;
+    private final int maxAttempts;
+    private final long timeoutMillis;
+
+    /**
+     * @param maxWorkers nb max de workers simultanés
+     * @param maxAttempts nb max de tentatives par plage
+     * @param timeoutMillis durée max d'une tentative (lancement, comptage et transfert)
+     */
+    public DistributedTrainer(int maxWorkers, int maxAttempts, long timeoutMillis) {
+        if (maxWorkers <= 0 || maxAttempts <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("maxWorkers, maxAttempts and timeoutMillis must be > 0");
+        }
+        this.maxWorkers = maxWorkers;
+        this.maxAttempts = maxAttempts;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Entraîne sur le fichier path découpé en numShards plages ; résultat avec des dictionnaires neufs.
+     */
+    public PartialResult train(Path path, int numShards) throws IOException, InterruptedException {
+        Path file = path.toAbsolutePath();
+        long[] bounds = MappedTsvReader.shards(file, numShards);
+        int shards = bounds.length - 1;
+
+        ExecutorService exec = Executors.newFixedThreadPool(Math.min(maxWorkers, shards));
+        try {
+            List<Future<PartialResult>> futures = new ArrayList<>();
+            for (int s = 0; s < shards; s++) {
+                int shard = s;
+                futures.add(exec.submit(() -> runShard(file, shard, bounds[shard], bounds[shard + 1])));
+            }
+
+            PartialResult global = new PartialResult();
+            for (Future<PartialResult> f : futures) {
+                global.mergeIn(f.get());
+            }
+            return global;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException("entraînement distribué : " + file, cause);
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    // Exécute une plage, avec reprise
+    private PartialResult runShard(Path path, int shard, long start, long end) throws IOException, InterruptedException {
+        IOException last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return attempt(path, shard, start, end, attempt);
+            } catch (IOException e) {
+                last = e;
+                System.err.println("⚠️ Plage " + shard + ", tentative " + attempt + "/" + maxAttempts
+                        + " échouée : " + e.getMessage());
+            }
+        }
+        throw new IOException("plage " + shard + " [" + start + ", " + end + ") en échec après "
+                + maxAttempts + " tentatives", last);
+    }
+
+    // Une tentative : lance le worker et attend son résultat sur un port dédié
+    private PartialResult attempt(Path path, int shard, long start, long end, int attempt)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long token = RANDOM.nextLong();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Process process = new ProcessBuilder(workerCommand(path, shard, start, end, attempt, server.getLocalPort()))
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            try {
+                // Jeton par l'entrée standard : absent de la ligne de commande, visible de tous (ps)
+                try (DataOutputStream stdin = new DataOutputStream(process.getOutputStream())) {
+                    stdin.writeLong(token);
+                }
+
+                // Attente de la connexion, en surveillant le worker (un worker mort n'attend pas le délai)
+                server.setSoTimeout(200);
+                PartialResult pr = null;
+                while (pr == null) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (SocketTimeoutException e) {
+                        if (!process.isAlive()) {
+                            throw new IOException("worker terminé sans résultat (code " + process.exitValue() + ")");
+                        }
+                        if (System.nanoTime() > deadline) throw new IOException("délai dépassé avant connexion");
+                        continue;
+                    }
+
+                    try (Socket s = socket) {
+                        // Jeton attendu peu de temps (le worker l'envoie dès la connexion), puis délai restant
+                        s.setSoTimeout((int) Math.max(1, Math.min(HANDSHAKE_TIMEOUT_MILLIS, remainingMillis(deadline))));
+                        DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                        if (!authenticated(in, token)) {
+                            System.err.println("⚠️ Plage " + shard + " : connexion sans jeton valide ignorée");
+                            if (System.nanoTime() > deadline) throw new IOException("délai dépassé avant connexion");
+                            continue;
+                        }
+                        s.setSoTimeout((int) Math.max(1, remainingMillis(deadline)));
+                        int received = in.readInt();
+                        if (received != shard) throw new IOException("résultat de la plage " + received + " au lieu de " + shard);
+                        long length = in.readLong();
+                        if (length <= 0) throw new IOException("longueur de résultat invalide : " + length);
+                        pr = PartialResultCodec.read(in, length);
+                    }
+                }
+
+                if (!process.waitFor(Math.max(1, remainingMillis(deadline)), TimeUnit.MILLISECONDS)) {
+                    throw new IOException("délai dépassé en fin de worker");
+                }
+                if (process.exitValue() != 0) throw new IOException("worker en erreur (code " + process.exitValue() + ")");
+                return pr;
+            } finally {
+                if (process.isAlive()) process.destroyForcibly();
+            }
+        }
+    }
+
+    // Vrai si la connexion commence par le jeton de la tentative (faux aussi si elle n'envoie rien)
+    private static boolean authenticated(DataInputStream in, long token) {
+        try {
+            return in.readLong() == token;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long remainingMillis(long deadline) {
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+
+    // java [options] -cp <classpath du coordinateur> DistributedTrainer --worker ...
+    private static List<String> workerCommand(Path path, int shard, long start, long end, int attempt, int port) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        String options = System.getProperty(WORKER_JVM_OPTIONS, "").trim();
+        if (!options.isEmpty()) cmd.addAll(Arrays.asList(options.split("\\s+")));
+        String failShards = System.getProperty(FAIL_SHARDS);
+        if (failShards != null) cmd.add("-D" + FAIL_SHARDS + "=" + failShards);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(DistributedTrainer.class.getName());
+        cmd.add("--worker");
+        cmd.add(path.toString());
+        cmd.add(Long.toString(start));
+        cmd.add(Long.toString(end));
+        cmd.add(Integer.toString(shard));
+        cmd.add(Integer.toString(attempt));
+        cmd.add(InetAddress.getLoopbackAddress().getHostAddress());
+        cmd.add(Integer.toString(port));
+        return cmd;
+    }
+
+    /**
+     * Côté worker : compte la plage [start, end) et envoie le résultat au coordinateur.
+     * args : path start end shard attempt host port ; entrée standard : jeton de la tentative
+     */
+    static void runWorker(String[] args) throws IOException {
+        long token = new DataInputStream(System.in).readLong();
+        Path path = Paths.get(args[0]);
+        long start = Long.parseLong(args[1]);
+        long end = Long.parseLong(args[2]);
+        int shard = Integer.parseInt(args[3]);
+        int attempt = Integer.parseInt(args[4]);
+
+        // Panne simulée (reprise par le coordinateur)
+        if (attempt == 1 && Arrays.asList(System.getProperty(FAIL_SHARDS, "").split(",")).contains(Integer.toString(shard))) {
+            System.exit(3);
+        }
+
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        PartialResult pr = new DataChunkTrainer(MappedTsvReader.loadRange(path, start, end, vocabulary, labels),
+                vocabulary, labels).call();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        PartialResultCodec.write(pr, payload);
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(args[5], Integer.parseInt(args[6])), 10_000);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeLong(token);
+            out.writeInt(shard);
+            out.writeLong(payload.size());
+            payload.writeTo(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Coordinateur : entraîne sur args[0] avec des workers locaux, puis évalue sur args[1] s'il est donné.
+     * args[2] : nb de workers simultanés (défaut nb de cœurs), args[3] : nb de plages (défaut 2 x workers),
+     * args[4] : tentatives par plage (défaut 3), args[5] : délai par tentative en secondes (défaut 300)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 1 && args[0].equals("--worker")) {
+            runWorker(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: java DistributedTrainer <train.tsv> [test.tsv] [workers] [shards] [maxAttempts] [timeoutSeconds]");
+            System.exit(1);
+        }
+        int workers = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int shards = args.length >= 4 ? Integer.parseInt(args[3]) : 2 * workers;
+        int attempts = args.length >= 5 ? Integer.parseInt(args[4]) : 3;
+        long timeoutSeconds = args.length >= 6 ? Long.parseLong(args[5]) : 300;
+
+        long t0 = System.nanoTime();
+        PartialResult global = new DistributedTrainer(workers, attempts, TimeUnit.SECONDS.toMillis(timeoutSeconds))
+                .train(Paths.get(args[0]), shards);
+        long trainMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+        System.out.println("⏱ Entraînement distribué (" + workers + " workers, " + shards + " plages) = " + trainMs + " ms");
+        System.out.println("Documents par classe : " + global.docCountsByLabel());
+        System.out.println("Mots par classe : " + global.totalWordsByLabel());
+        System.out.println("Vocabulaire : " + global.vocabulary.size() + " mots");
+
+        if (args.length >= 2) {
+            CompiledModel model = new NaiveBayesModel(global).compile();
+            Corpus test = MappedTsvReader.load(Paths.get(args[1]));
+            int correct = 0;
+            for (int i = 0; i < test.size(); i++) {
+                if (test.labelName(i).equals(model.predict(test.tokens(i)))) correct++;
+            }
+            System.out.printf(Locale.ROOT, "Accuracy = %.2f%% (%d/%d)%n",
+                    100.0 * correct / Math.max(1, test.size()), correct, test.size());
+        }
+    }
+}
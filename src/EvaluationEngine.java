@@ -0,0 +1,404 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Classe EvaluationEngine
+ * Évaluation d'un CompiledModel sur un jeu de test :
+ * - le jeu est scoré une seule fois, en parallèle (ForkJoin par plages d'indices) ; chaque tâche
+ *   remplit sa propre matrice de confusion primitive (int[]), sommées à la remontée ;
+ * - les scores bruts sont conservés : pour la classe positive (ex. "spam"), log-odds
+ *   log P(positive, message) - max log P(autre classe, message) ;
+ * - à partir de ces scores, sans re-scorer : précision / rappel / F1 à chaque seuil, courbes ROC et
+ *   précision-rappel, aires sous les courbes (AUC ROC, précision moyenne).
+ * Règle de décision au seuil t : positive si log-odds >= t (t = 0 : règle du maximum, hors égalités).
+ */
+public final class EvaluationEngine {
+
+    /**
+     * Point d'une courbe : décision "positive si log-odds >= threshold".
+     */
+    public static final class Point {
+        public final double threshold;
+        public final int tp;
+        public final int fp;
+        public final int tn;
+        public final int fn;
+
+        Point(double threshold, int tp, int fp, int tn, int fn) {
+            this.threshold = threshold;
+            this.tp = tp;
+            this.fp = fp;
+            this.tn = tn;
+            this.fn = fn;
+        }
+
+        public double precision() {
+            return tp + fp == 0 ? 0 : (double) tp / (tp + fp);
+        }
+
+        public double recall() {
+            return tp + fn == 0 ? 0 : (double) tp / (tp + fn);
+        }
+
+        public double f1() {
+            double p = precision();
+            double r = recall();
+            return p + r == 0 ? 0 : 2 * p * r / (p + r);
+        }
+
+        // Taux de faux positifs (abscisse de la courbe ROC)
+        public double falsePositiveRate() {
+            return fp + tn == 0 ? 0 : (double) fp / (fp + tn);
+        }
+    }
+
+    /**
+     * Résultat : matrice de confusion de la règle du maximum et scores bruts.
+     */
+    public static final class Result {
+        private final String[] labels;          // classes (modèle, puis classes du test inconnues du modèle)
+        private final int[] confusion;          // [réelle * nbClasses + prédite]
+        private final String positiveLabel;     // null : pas de scores binaires
+        private final double[] logOdds;         // [message]
+        private final boolean[] positive;       // [message] classe réelle = positiveLabel
+        private volatile List<Point> sweep;     // calculé au premier appel de sweep()
+
+        Result(String[] labels, int[] confusion, String positiveLabel, double[] logOdds, boolean[] positive) {
+            this.labels = labels;
+            this.confusion = confusion;
+            this.positiveLabel = positiveLabel;
+            this.logOdds = logOdds;
+            this.positive = positive;
+        }
+
+        public List<String> labels() {
+            return Arrays.asList(labels.clone());
+        }
+
+        // Nb de messages de classe réelle actual prédits predicted
+        public int count(String actual, String predicted) {
+            int a = indexOf(actual);
+            int p = indexOf(predicted);
+            return a < 0 || p < 0 ? 0 : confusion[a * labels.length + p];
+        }
+
+        public int total() {
+            int n = 0;
+            for (int v : confusion) n += v;
+            return n;
+        }
+
+        public double accuracy() {
+            int correct = 0;
+            for (int c = 0; c < labels.length; c++) correct += confusion[c * labels.length + c];
+            int total = total();
+            return total == 0 ? 0 : (double) correct / total;
+        }
+
+        public double precision(String label) {
+            int c = indexOf(label);
+            if (c < 0) return 0;
+            int predicted = 0;
+            for (int a = 0; a < labels.length; a++) predicted += confusion[a * labels.length + c];
+            return predicted == 0 ? 0 : (double) confusion[c * labels.length + c] / predicted;
+        }
+
+        public double recall(String label) {
+            int c = indexOf(label);
+            if (c < 0) return 0;
+            int actual = 0;
+            for (int p = 0; p < labels.length; p++) actual += confusion[c * labels.length + p];
+            return actual == 0 ? 0 : (double) confusion[c * labels.length + c] / actual;
+        }
+
+        public double f1(String label) {
+            double p = precision(label);
+            double r = recall(label);
+            return p + r == 0 ? 0 : 2 * p * r / (p + r);
+        }
+
+        public String positiveLabel() {
+            return positiveLabel;
+        }
+
+        // Log-odds de la classe positive pour le message index
+        public double logOdds(int index) {
+            requireScores();
+            return logOdds[index];
+        }
+
+        /**
+         * Un point par seuil distinct (chaque score observé), par seuil décroissant :
+         * du premier point (seuls les scores maximaux positifs) au dernier (tout est positif).
+         * Calculé au premier appel puis partagé (liste non modifiable) par les AUC, bestF1 et les CSV.
+         */
+        public List<Point> sweep() {
+            requireScores();
+            List<Point> points = sweep;
+            if (points == null) {
+                points = Collections.unmodifiableList(computeSweep());
+                sweep = points;
+            }
+            return points;
+        }
+
+        // Scores des positifs et des négatifs triés à part (tableaux primitifs), fusionnés du plus grand au plus petit
+        private List<Point> computeSweep() {
+            int n = logOdds.length;
+            int totalPositive = 0;
+            for (boolean p : positive) if (p) totalPositive++;
+            int totalNegative = n - totalPositive;
+            double[] pos = new double[totalPositive];
+            double[] neg = new double[totalNegative];
+            for (int i = 0, a = 0, b = 0; i < n; i++) {
+                if (positive[i]) pos[a++] = logOdds[i];
+                else neg[b++] = logOdds[i];
+            }
+            Arrays.sort(pos);
+            Arrays.sort(neg);
+
+            List<Point> points = new ArrayList<>();
+            int tp = 0;
+            int fp = 0;
+            int i = pos.length - 1;
+            int j = neg.length - 1;
+            while (i >= 0 || j >= 0) {
+                double threshold = i < 0 ? neg[j] : j < 0 ? pos[i] : Math.max(pos[i], neg[j]);
+                // Scores égaux : même décision, un seul point
+                while (i >= 0 && pos[i] == threshold) {
+                    tp++;
+                    i--;
+                }
+                while (j >= 0 && neg[j] == threshold) {
+                    fp++;
+                    j--;
+                }
+                points.add(new Point(threshold, tp, fp, totalNegative - fp, totalPositive - tp));
+            }
+            return points;
+        }
+
+        /**
+         * Décision au seuil donné (positive si log-odds >= threshold).
+         */
+        public Point at(double threshold) {
+            requireScores();
+            int tp = 0, fp = 0, tn = 0, fn = 0;
+            for (int i = 0; i < logOdds.length; i++) {
+                boolean predicted = logOdds[i] >= threshold;
+                if (positive[i]) {
+                    if (predicted) tp++;
+                    else fn++;
+                } else if (predicted) {
+                    fp++;
+                } else {
+                    tn++;
+                }
+            }
+            return new Point(threshold, tp, fp, tn, fn);
+        }
+
+        // Aire sous la courbe ROC (trapèzes ; ex aequo = segment diagonal)
+        public double rocAuc() {
+            double area = 0;
+            double prevTpr = 0;
+            double prevFpr = 0;
+            for (Point p : sweep()) {
+                double tpr = p.recall();
+                double fpr = p.falsePositiveRate();
+                area += (fpr - prevFpr) * (tpr + prevTpr) / 2;
+                prevTpr = tpr;
+                prevFpr = fpr;
+            }
+            return area;
+        }
+
+        // Aire sous la courbe précision-rappel (précision moyenne : somme des précisions x gain de rappel)
+        public double averagePrecision() {
+            double area = 0;
+            double prevRecall = 0;
+            for (Point p : sweep()) {
+                double recall = p.recall();
+                area += (recall - prevRecall) * p.precision();
+                prevRecall = recall;
+            }
+            return area;
+        }
+
+        // Seuil de F1 maximal
+        public Point bestF1() {
+            Point best = null;
+            for (Point p : sweep()) {
+                if (best == null || p.f1() > best.f1()) best = p;
+            }
+            return best;
+        }
+
+        /**
+         * Métriques au format de results.csv (Metric,Value), plus les AUC si des scores binaires existent.
+         */
+        public void writeMetricsCsv(Path path) throws IOException {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+                out.println("Metric,Value");
+                out.println("Accuracy," + 100.0 * accuracy());
+                for (String label : labels) {
+                    String name = Character.toUpperCase(label.charAt(0)) + label.substring(1);
+                    out.println("Precision_" + name + "," + precision(label));
+                    out.println("Recall_" + name + "," + recall(label));
+                    out.println("F1_" + name + "," + f1(label));
+                }
+                if (positiveLabel != null) {
+                    out.println("ROC_AUC," + rocAuc());
+                    out.println("Average_Precision," + averagePrecision());
+                    Point best = bestF1();
+                    if (best != null) {
+                        out.println("Best_F1," + best.f1());
+                        out.println("Best_F1_Threshold," + best.threshold);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Courbes ROC et précision-rappel, un point par seuil :
+         * threshold,tp,fp,tn,fn,precision,recall,f1,fpr
+         */
+        public void writeSweepCsv(Path path) throws IOException {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+                out.println("threshold,tp,fp,tn,fn,precision,recall,f1,fpr");
+                for (Point p : sweep()) {
+                    out.printf(Locale.ROOT, "%.6f,%d,%d,%d,%d,%.6f,%.6f,%.6f,%.6f%n", p.threshold, p.tp, p.fp,
+                            p.tn, p.fn, p.precision(), p.recall(), p.f1(), p.falsePositiveRate());
+                }
+            }
+        }
+
+        private void requireScores() {
+            if (positiveLabel == null) throw new IllegalStateException("no positive label: binary scores unavailable");
+        }
+
+        private int indexOf(String label) {
+            for (int c = 0; c < labels.length; c++) {
+                if (labels[c].equals(label)) return c;
+            }
+            return -1;
+        }
+    }
+
+    private EvaluationEngine() {
+    }
+
+    /**
+     * Score le jeu de test une fois sur parallelism threads.
+     * @param positiveLabel classe positive des scores binaires (ex. "spam"), null ou absente du modèle : aucun
+     */
+    public static Result evaluate(CompiledModel model, Corpus test, String positiveLabel, int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        List<String> labels = new ArrayList<>();
+        for (int c = 0; c < model.numClasses(); c++) labels.add(model.label(c));
+        int pos = positiveLabel == null ? -1 : labels.indexOf(positiveLabel);
+
+        // Classes réelles inconnues du modèle : lignes supplémentaires de la matrice
+        int[] actual = new int[test.size()];
+        for (int i = 0; i < actual.length; i++) {
+            String label = test.labelName(i);
+            int c = labels.indexOf(label);
+            if (c < 0) {
+                c = labels.size();
+                labels.add(label);
+            }
+            actual[i] = c;
+        }
+
+        double[] logOdds = pos < 0 ? null : new double[test.size()];
+        ScoreTask task = new ScoreTask(model, test, actual, labels.size(), pos, logOdds, 0, test.size(),
+                Math.max(64, test.size() / (parallelism * 8)));
+        int[] confusion;
+        if (parallelism == 1) {
+            confusion = task.compute();
+        } else {
+            confusion = SharedPools.get(parallelism).invoke(task);
+        }
+
+        boolean[] positive = null;
+        if (pos >= 0) {
+            positive = new boolean[test.size()];
+            for (int i = 0; i < actual.length; i++) positive[i] = actual[i] == pos;
+        }
+        return new Result(labels.toArray(new String[0]), confusion, pos < 0 ? null : positiveLabel, logOdds, positive);
+    }
+
+    // Score les messages [from, to) ; retourne la matrice de confusion de la plage
+    private static final class ScoreTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final CompiledModel model;
+        private final Corpus test;
+        private final int[] actual;
+        private final int numLabels;
+        private final int positive;
+        private final double[] logOdds;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        ScoreTask(CompiledModel model, Corpus test, int[] actual, int numLabels, int positive,
+                  double[] logOdds, int from, int to, int threshold) {
+            this.model = model;
+            this.test = test;
+            this.actual = actual;
+            this.numLabels = numLabels;
+            this.positive = positive;
+            this.logOdds = logOdds;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > threshold) {
+                int mid = (from + to) >>> 1;
+                ScoreTask left = new ScoreTask(model, test, actual, numLabels, positive, logOdds, from, mid, threshold);
+                ScoreTask right = new ScoreTask(model, test, actual, numLabels, positive, logOdds, mid, to, threshold);
+                left.fork();
+                int[] counts = right.compute();
+                int[] leftCounts = left.join();
+                for (int i = 0; i < counts.length; i++) counts[i] += leftCounts[i];
+                return counts;
+            }
+
+            int numClasses = model.numClasses();
+            Vocabulary vocabulary = model.vocabulary();
+            int[] counts = new int[numLabels * numLabels];
+            double[] scores = new double[numClasses];
+            // Ids du même dictionnaire : pas de recherche par String
+            boolean sameIds = test.vocabulary() == vocabulary;
+            int[] tokens = test.tokenArray();
+            for (int i = from; i < to; i++) {
+                // Même calcul que CompiledModel.predict (NaiveBayesScorer), sur les ids du corpus
+                model.priors(scores);
+                int end = test.start(i + 1);
+                for (int t = test.start(i); t < end; t++) {
+                    int id = sameIds ? tokens[t] : vocabulary.idOf(test.vocabulary().token(tokens[t]));
+                    model.addLogLikelihoods(id, scores);
+                }
+                int best = NaiveBayesScorer.argmax(scores);
+                if (best >= 0) counts[actual[i] * numLabels + best]++;
+
+                if (positive >= 0) {
+                    double other = Double.NEGATIVE_INFINITY;
+                    for (int c = 0; c < numClasses; c++) {
+                        if (c != positive) other = Math.max(other, scores[c]);
+                    }
+                    logOdds[i] = scores[positive] - other;
+                }
+            }
+            return counts;
+        }
+    }
+}
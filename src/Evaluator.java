@@ -2,37 +2,25 @@ import java.util.*;
 
 public class Evaluator {
 
-    public static void evaluate(NaiveBayesModel model, List<DataPoint> testData) {
-        int correct = 0;
-        int total = testData.size();
-
-        // Confusion matrix
-        Map<String, Map<String, Integer>> confusion = new HashMap<>();
-
-        for (DataPoint dp : testData) {
-            String predicted = model.predict(dp.tokens);
-            if (predicted.equals(dp.label)) {
-                correct++;
-            }
-
-            // Update confusion matrix
-            confusion
-                .computeIfAbsent(dp.label, k -> new HashMap<>())
-                .put(predicted, confusion.getOrDefault(dp.label, new HashMap<>())
-                    .getOrDefault(predicted, 0) + 1);
-        }
+    public static void evaluate(NaiveBayesModel model, Corpus testData) {
+        evaluate(model, testData, Runtime.getRuntime().availableProcessors());
+    }
 
-        double accuracy = (double) correct / total;
+    public static void evaluate(NaiveBayesModel model, Corpus testData, int parallelism) {
+        // Scores calculés une seule fois en parallèle (matrices de confusion par tâche, voir EvaluationEngine)
+        EvaluationEngine.Result result = EvaluationEngine.evaluate(model.compile(), testData, null, parallelism);
 
         System.out.println("=== Résultats d'évaluation ===");
-        System.out.println("Accuracy: " + accuracy);
+        System.out.println("Accuracy: " + result.accuracy());
 
         // Affiche la matrice de confusion
         System.out.println("\nMatrice de confusion:");
-        for (String actual : confusion.keySet()) {
+        List<String> labels = result.labels();
+        for (String actual : labels) {
             System.out.print(actual + " -> ");
-            for (Map.Entry<String, Integer> e : confusion.get(actual).entrySet()) {
-                System.out.print(e.getKey() + ":" + e.getValue() + "  ");
+            for (String predicted : labels) {
+                int n = result.count(actual, predicted);
+                if (n > 0) System.out.print(predicted + ":" + n + "  ");
             }
             System.out.println();
         }
@@ -0,0 +1,91 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * FeatureSelectionReport.java
+ *
+ * Compare le modèle complet aux modèles réduits par FeatureSelector :
+ * nb de mots, taille du fichier modèle (format ModelFile), taille de la table de scores,
+ * accuracy sur le jeu de test et accord des prédictions avec le modèle complet.
+ *
+ * Sortie CSV sur la console :
+ * method,param,tokens,file_bytes,table_bytes,accuracy,agreement_pct
+ */
+public class FeatureSelectionReport {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java FeatureSelectionReport <train.tsv> <test.tsv> [k, ex. 250,500,1000,2000] [minCounts, ex. 2,3,5]");
+            System.exit(1);
+        }
+        Path trainPath = Paths.get(args[0]);
+        Path testPath = Paths.get(args[1]);
+        int[] ks = parse(args.length >= 3 ? args[2] : "250,500,1000,2000");
+        int[] minCounts = parse(args.length >= 4 ? args[3] : "2,3,5");
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus trainData = MappedTsvReader.load(trainPath, vocabulary, labels, threads);
+        PartialResult full = PartialResultReducer.train(trainData.chunks(threads),
+                vocabulary, labels, threads, PartialResultReducer.Mode.TREE);
+
+        // Jeu de test en Strings : indépendant des dictionnaires des modèles comparés
+        List<List<String>> messages = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        Corpus test = MappedTsvReader.load(testPath);
+        for (int i = 0; i < test.size(); i++) {
+            messages.add(new ArrayList<>(test.tokens(i)));
+            expected.add(test.labelName(i));
+        }
+
+        CompiledModel fullModel = new NaiveBayesModel(full).compile();
+        BatchPrediction reference = fullModel.predictBatch(messages, threads);
+
+        System.out.println("method,param,tokens,file_bytes,table_bytes,accuracy,agreement_pct");
+        System.out.printf(Locale.ROOT, "full,0,%d,%d,%d,%.4f,100.00%n", fullModel.numTokens(),
+                ModelFile.size(fullModel), 8L * fullModel.numTokens() * fullModel.numClasses(),
+                accuracy(reference, expected));
+        for (int m : minCounts) {
+            report("min_count", m, FeatureSelector.minCount(full, m), reference, messages, expected, threads);
+        }
+        for (int k : ks) {
+            report("top_k_frequency", k, FeatureSelector.topKByFrequency(full, k), reference, messages, expected, threads);
+        }
+        for (int k : ks) {
+            report("top_k_discriminative", k, FeatureSelector.topKByDiscriminativeness(full, k),
+                    reference, messages, expected, threads);
+        }
+        for (int k : ks) {
+            // Résumé de 2k compteurs : la traîne n'est jamais chargée
+            report("space_saving", k, FeatureSelector.trainHeavyHitters(trainPath, 2 * k, k),
+                    reference, messages, expected, threads);
+        }
+    }
+
+    private static void report(String method, int param, PartialResult counts, BatchPrediction reference,
+                               List<List<String>> messages, List<String> expected, int threads) {
+        CompiledModel model = FeatureSelector.compile(counts);
+        BatchPrediction predictions = model.predictBatch(messages, threads);
+        int agree = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            if (Objects.equals(reference.label(i), predictions.label(i))) agree++;
+        }
+        System.out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%.4f,%.2f%n", method, param, model.numTokens(),
+                ModelFile.size(model), 8L * model.numTokens() * model.numClasses(),
+                accuracy(predictions, expected), 100.0 * agree / Math.max(1, messages.size()));
+    }
+
+    private static double accuracy(BatchPrediction predictions, List<String> expected) {
+        int correct = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i).equals(predictions.label(i))) correct++;
+        }
+        return expected.isEmpty() ? 0 : (double) correct / expected.size();
+    }
+
+    private static int[] parse(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Classe FeatureSelector
+ * Sélection des mots entre l'agrégation des PartialResult et la construction du modèle :
+ * la longue traîne des mots rares est retirée, le modèle est plusieurs fois plus petit.
+ *
+ * - minCount : mots vus au moins minCount fois (toutes classes) ;
+ * - topKByFrequency : les k mots les plus fréquents ;
+ * - topKByDiscriminativeness : les k mots les plus liés à une classe (voir discriminativeness) ;
+ * - trainHeavyHitters : entraînement en flux qui ne garde jamais la traîne en mémoire
+ *   (résumé Space-Saving puis comptage des seuls mots retenus).
+ *
+ * Le résultat est un nouveau PartialResult (dictionnaire compact, mêmes classes), à compiler avec
+ * compile() : les mots retirés sont alors ignorés à la prédiction (sinon chacun compterait comme
+ * un mot inconnu, ce qui favorise la classe au plus petit nb de mots).
+ */
+public final class FeatureSelector {
+
+    private FeatureSelector() {
+    }
+
+    /**
+     * Modèle compilé d'un résultat réduit : mots hors sélection ignorés.
+     */
+    public static CompiledModel compile(PartialResult selected) {
+        return new NaiveBayesModel(selected).compile().withUnknownTokensIgnored();
+    }
+
+    public static PartialResult minCount(PartialResult pr, int minCount) {
+        int numTokens = pr.vocabulary.size();
+        boolean[] keep = new boolean[numTokens];
+        for (int t = 0; t < numTokens; t++) {
+            keep[t] = totalCount(pr, t) >= minCount;
+        }
+        return keep(pr, keep);
+    }
+
+    public static PartialResult topKByFrequency(PartialResult pr, int k) {
+        int numTokens = pr.vocabulary.size();
+        double[] score = new double[numTokens];
+        for (int t = 0; t < numTokens; t++) {
+            score[t] = totalCount(pr, t);
+        }
+        return keep(pr, topK(score, k));
+    }
+
+    public static PartialResult topKByDiscriminativeness(PartialResult pr, int k) {
+        int numTokens = pr.vocabulary.size();
+        int vocabularySize = Math.max(1, pr.vocabularySize());
+        long totalWords = 0;
+        for (int c = 0; c < pr.numClasses(); c++) totalWords += pr.totalWordsPerClass[c];
+        double[] score = new double[numTokens];
+        for (int t = 0; t < numTokens; t++) {
+            score[t] = discriminativeness(pr, t, vocabularySize, totalWords);
+        }
+        return keep(pr, topK(score, k));
+    }
+
+    /**
+     * Score d'un mot : somme sur les classes c de n_c * log(P(w|c) / P(w|autres classes)),
+     * probabilités lissées (Laplace). Nul pour un mot réparti comme le reste du texte, d'autant
+     * plus grand que le mot est fréquent et concentré dans une classe.
+     */
+    static double discriminativeness(PartialResult pr, int tokenId, int vocabularySize, long totalWords) {
+        int numClasses = pr.numClasses();
+        long n = totalCount(pr, tokenId);
+        double score = 0;
+        for (int c = 0; c < numClasses; c++) {
+            int nc = pr.count(c, tokenId);
+            if (nc == 0) continue;
+            double inClass = (nc + 1.0) / (pr.totalWordsPerClass[c] + vocabularySize);
+            double outside = (n - nc + 1.0) / (totalWords - pr.totalWordsPerClass[c] + vocabularySize);
+            score += nc * Math.log(inClass / outside);
+        }
+        return score;
+    }
+
+    /**
+     * Copie de pr restreinte aux mots keep[id] (ids renumérotés dans l'ordre, classes partagées).
+     */
+    public static PartialResult keep(PartialResult pr, boolean[] keep) {
+        Vocabulary vocabulary = new Vocabulary();
+        int numClasses = pr.numClasses();
+        int[] newIds = new int[keep.length];
+        for (int t = 0; t < keep.length; t++) {
+            newIds[t] = keep[t] && totalCount(pr, t) > 0 ? vocabulary.intern(pr.vocabulary.token(t)) : -1;
+        }
+
+        PartialResult out = new PartialResult(vocabulary, pr.labels);
+        out.docCounts = Arrays.copyOf(pr.docCounts, numClasses);
+        out.totalWordsPerClass = new long[numClasses];
+        out.wordCountsPerClass = new int[numClasses][];
+        for (int c = 0; c < numClasses; c++) {
+            int[] src = pr.wordCountsPerClass[c];
+            int[] dst = new int[vocabulary.size()];
+            long total = 0;
+            for (int t = 0; t < src.length && t < keep.length; t++) {
+                if (newIds[t] >= 0) {
+                    dst[newIds[t]] = src[t];
+                    total += src[t];
+                }
+            }
+            out.wordCountsPerClass[c] = dst;
+            out.totalWordsPerClass[c] = total;
+        }
+        return out;
+    }
+
+    /**
+     * Entraînement en deux passes sur le fichier, en mémoire bornée :
+     * 1) résumé Space-Saving des mots (capacity compteurs) ;
+     * 2) comptage par classe des k mots les plus fréquents du résumé uniquement.
+     */
+    public static PartialResult trainHeavyHitters(Path path, int capacity, int k) throws IOException {
+        Tokenizer tokenizer = new Tokenizer(false);   // fichier prétraité : pas de re-filtrage
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int[] label = NaiveBayesParallel.labelBounds(line);
+                if (label == null) continue;
+                for (String token : tokenizer.tokenize(line, label[1], line.length())) sketch.add(token);
+            }
+        }
+
+        Vocabulary vocabulary = new Vocabulary();
+        for (String token : sketch.top(k, false)) vocabulary.intern(token);
+        PartialResult pr = new PartialResult(vocabulary, new Vocabulary());
+        try (BufferedReader br = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                int[] bounds = NaiveBayesParallel.labelBounds(line);
+                if (bounds == null) continue;
+                int label = pr.labels.intern(line.substring(bounds[0], bounds[1]));
+                pr.addDocument(label);
+                for (String token : tokenizer.tokenize(line, bounds[1], line.length())) {
+                    int id = vocabulary.idOf(token);
+                    if (id >= 0) pr.addToken(label, id);
+                }
+            }
+        }
+        return pr;
+    }
+
+    private static long totalCount(PartialResult pr, int tokenId) {
+        long n = 0;
+        for (int c = 0; c < pr.numClasses(); c++) {
+            n += pr.count(c, tokenId);
+        }
+        return n;
+    }
+
+    // Masque des k meilleurs scores (ex aequo départagés par id croissant)
+    private static boolean[] topK(double[] score, int k) {
+        Integer[] order = new Integer[score.length];
+        for (int i = 0; i < score.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int c = Double.compare(score[b], score[a]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        boolean[] keep = new boolean[score.length];
+        for (int i = 0; i < Math.min(k, order.length); i++) keep[order[i]] = true;
+        return keep;
+    }
+}
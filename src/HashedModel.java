@@ -0,0 +1,89 @@
+/**
+ * Classe HashedModel
+ * Modèle compilé du mode "hashing trick" : log P(seau|c) précalculés dans une table de taille fixe
+ * (numBuckets x numClasses doubles), indépendante du nombre de mots vus.
+ *
+ * Même calcul que CompiledModel (lissage de Laplace), avec le seau à la place du mot et le nb de
+ * seaux occupés à la place de la taille du vocabulaire. Un mot jamais vu tombe dans un seau vide
+ * (même probabilité qu'un mot inconnu du modèle exact) ou partage les comptages d'un autre mot.
+ *
+ * Immuable : une instance peut être utilisée par plusieurs threads.
+ */
+public final class HashedModel extends NaiveBayesScorer {
+
+    private final int mask;
+    private final String[] labels;
+    private final double[] logPriors;
+    private final double[] logLikelihoods;     // [seau * nbClasses + c]
+
+    public HashedModel(HashedPartialResult pr) {
+        this(pr, 1.0);
+    }
+
+    /**
+     * @param alpha constante de lissage (1 = Laplace)
+     */
+    public HashedModel(HashedPartialResult pr, double alpha) {
+        int numClasses = pr.numClasses();
+        int numBuckets = pr.numBuckets();
+        int occupied = pr.occupiedBuckets();
+
+        this.mask = numBuckets - 1;
+        this.labels = new String[numClasses];
+        this.logPriors = new double[numClasses];
+        this.logLikelihoods = new double[numBuckets * numClasses];
+
+        long totalDocs = 0;
+        for (int c = 0; c < numClasses; c++) {
+            totalDocs += pr.docCount(c);
+        }
+
+        for (int c = 0; c < numClasses; c++) {
+            labels[c] = pr.labels.token(c);
+            logPriors[c] = Math.log((double) pr.docCount(c) / totalDocs);
+            double denominator = pr.totalWords(c) + alpha * occupied;
+            for (int b = 0; b < numBuckets; b++) {
+                logLikelihoods[b * numClasses + c] = Math.log((pr.count(c, b) + alpha) / denominator);
+            }
+        }
+    }
+
+    // Le seau du token : jamais inconnu
+    @Override
+    int idOf(String token) {
+        return TokenIdCache.hash(token) & mask;
+    }
+
+    @Override
+    void addLogLikelihoods(int bucket, double[] scores) {
+        int numClasses = labels.length;
+        int row = bucket * numClasses;
+        for (int c = 0; c < numClasses; c++) {
+            scores[c] += logLikelihoods[row + c];
+        }
+    }
+
+    @Override
+    double logPrior(int c) {
+        return logPriors[c];
+    }
+
+    @Override
+    String label(int c) {
+        return labels[c];
+    }
+
+    @Override
+    public int numClasses() {
+        return labels.length;
+    }
+
+    public int numBuckets() {
+        return mask + 1;
+    }
+
+    // Taille de la table de scores en octets
+    public long footprintBytes() {
+        return 8L * logLikelihoods.length;
+    }
+}
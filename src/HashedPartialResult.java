@@ -0,0 +1,130 @@
+import java.util.Arrays;
+
+/**
+ * Classe HashedPartialResult
+ * Comptages en mode "hashing trick" : chaque token est haché dans une table de numBuckets
+ * compteurs par classe. Pas de dictionnaire des mots : la mémoire est fixée à la création
+ * (numClasses x numBuckets entiers), quel que soit le nombre de mots distincts du corpus.
+ *
+ * Deux mots de même seau partagent leurs comptages (collision) ; voir HashingReport.
+ */
+public class HashedPartialResult {
+
+    public final Vocabulary labels;            // classes (petit dictionnaire, borné par le nb de classes)
+    private final int mask;
+    private int[] docCounts = new int[0];
+    private long[] totalWordsPerClass = new long[0];
+    private int[][] counts = new int[0][];     // [classe][seau]
+
+    /**
+     * @param numBuckets taille de la table par classe (puissance de 2)
+     */
+    public HashedPartialResult(int numBuckets, Vocabulary labels) {
+        if (numBuckets <= 0 || Integer.bitCount(numBuckets) != 1) {
+            throw new IllegalArgumentException("numBuckets must be a power of 2: " + numBuckets);
+        }
+        this.mask = numBuckets - 1;
+        this.labels = labels;
+    }
+
+    public int numBuckets() {
+        return mask + 1;
+    }
+
+    // Seau d'un token (même hachage que TokenIdCache, sur les octets UTF-8)
+    public int bucket(String token) {
+        return TokenIdCache.hash(token) & mask;
+    }
+
+    public int bucket(byte[] token, int len) {
+        return TokenIdCache.hash(token, 0, len) & mask;
+    }
+
+    public void addDocument(int label) {
+        ensureClass(label);
+        docCounts[label]++;
+    }
+
+    public void addToken(int label, int bucket) {
+        ensureClass(label);
+        counts[label][bucket]++;
+        totalWordsPerClass[label]++;
+    }
+
+    // Ajoute les comptages de documents déjà tokenisés
+    public void accumulate(Corpus data) {
+        int[] tokens = data.tokenArray();
+        for (int i = 0; i < data.size(); i++) {
+            int label = labels.intern(data.labelName(i));
+            addDocument(label);
+            int end = data.start(i + 1);
+            for (int k = data.start(i); k < end; k++) {
+                addToken(label, bucket(data.vocabulary().token(tokens[k])));
+            }
+        }
+    }
+
+    /**
+     * Addition élément par élément (même taille de table obligatoire).
+     */
+    public void mergeIn(HashedPartialResult pr) {
+        if (pr.mask != this.mask) {
+            throw new IllegalArgumentException("table sizes differ: " + pr.numBuckets() + " vs " + numBuckets());
+        }
+        for (int c = 0; c < pr.docCounts.length; c++) {
+            int label = pr.labels == this.labels ? c : this.labels.intern(pr.labels.token(c));
+            ensureClass(label);
+            this.docCounts[label] += pr.docCounts[c];
+            this.totalWordsPerClass[label] += pr.totalWordsPerClass[c];
+            int[] src = pr.counts[c];
+            int[] dst = this.counts[label];
+            for (int b = 0; b < src.length; b++) {
+                dst[b] += src[b];
+            }
+        }
+    }
+
+    public int numClasses() {
+        return docCounts.length;
+    }
+
+    public int docCount(int label) {
+        return docCounts[label];
+    }
+
+    public long totalWords(int label) {
+        return totalWordsPerClass[label];
+    }
+
+    public int count(int label, int bucket) {
+        return counts[label][bucket];
+    }
+
+    /**
+     * Nb de seaux non vides (toutes classes) : équivalent haché de la taille du vocabulaire.
+     */
+    public int occupiedBuckets() {
+        int n = 0;
+        for (int b = 0; b <= mask; b++) {
+            for (int[] row : counts) {
+                if (row[b] != 0) {
+                    n++;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    private void ensureClass(int label) {
+        if (label < docCounts.length) return;
+        int n = label + 1;
+        int old = docCounts.length;
+        docCounts = Arrays.copyOf(docCounts, n);
+        totalWordsPerClass = Arrays.copyOf(totalWordsPerClass, n);
+        counts = Arrays.copyOf(counts, n);
+        for (int c = old; c < n; c++) {
+            counts[c] = new int[mask + 1];
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * HashingReport.java
+ *
+ * Impact du mode "hashing trick" selon la taille de la table (2^bits seaux par classe) :
+ * - collisions : part des mots distincts du corpus d'entraînement qui partagent leur seau avec un autre ;
+ * - accuracy sur le jeu de test, et accord des prédictions avec le modèle exact (dictionnaire complet) ;
+ * - mémoire : comptages (numClasses x seaux x 4 octets) et table de scores du modèle.
+ *
+ * Sortie CSV sur la console :
+ * bits,buckets,occupied,colliding_tokens_pct,accuracy,agreement_pct,count_bytes,model_bytes
+ * (première ligne "exact" : modèle à dictionnaire, pour comparaison).
+ */
+public class HashingReport {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java HashingReport <train.tsv> <test.tsv> [bits, ex. 8,10,12,14,16,18,20] [threads]");
+            System.exit(1);
+        }
+        Path trainPath = Paths.get(args[0]);
+        Path testPath = Paths.get(args[1]);
+        int[] bitsList = args.length >= 3
+                ? Arrays.stream(args[2].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+                : new int[] {8, 10, 12, 14, 16, 18, 20};
+        int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        // Référence : modèle exact
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus trainData = MappedTsvReader.load(trainPath, vocabulary, labels, threads);
+        int trainedTokens = vocabulary.size();
+        Corpus testData = MappedTsvReader.load(testPath, vocabulary, labels, threads);
+        PartialResult exactCounts = PartialResultReducer.train(trainData.chunks(threads),
+                vocabulary, labels, threads, PartialResultReducer.Mode.TREE);
+        CompiledModel exact = new NaiveBayesModel(exactCounts).compile();
+
+        List<List<String>> messages = testData.messages();
+        BatchPrediction reference = exact.predictBatch(messages, threads);
+
+        System.out.println("bits,buckets,occupied,colliding_tokens_pct,accuracy,agreement_pct,count_bytes,model_bytes");
+        System.out.printf(Locale.ROOT, "exact,%d,%d,0.00,%.4f,100.00,%d,%d%n",
+                trainedTokens, trainedTokens, accuracy(reference, testData),
+                4L * exactCounts.numClasses() * trainedTokens, 8L * exact.numClasses() * exact.numTokens());
+
+        for (int bits : bitsList) {
+            int numBuckets = 1 << bits;
+            HashedPartialResult counts = MappedTsvReader.loadHashed(trainPath, numBuckets, new Vocabulary(), threads);
+            HashedModel model = new HashedModel(counts);
+            BatchPrediction predictions = model.predictBatch(messages, threads);
+
+            int agree = 0;
+            for (int i = 0; i < testData.size(); i++) {
+                if (Objects.equals(predictions.label(i), reference.label(i))) agree++;
+            }
+            System.out.printf(Locale.ROOT, "%d,%d,%d,%.2f,%.4f,%.2f,%d,%d%n",
+                    bits, numBuckets, counts.occupiedBuckets(),
+                    100.0 * collidingTokens(vocabulary, trainedTokens, counts) / trainedTokens,
+                    accuracy(predictions, testData), 100.0 * agree / Math.max(1, testData.size()),
+                    4L * counts.numClasses() * numBuckets, model.footprintBytes());
+        }
+    }
+
+    // Nb de mots distincts (ids < numTokens) dont le seau contient au moins un autre mot
+    private static int collidingTokens(Vocabulary vocabulary, int numTokens, HashedPartialResult counts) {
+        int[] perBucket = new int[counts.numBuckets()];
+        int[] buckets = new int[numTokens];
+        for (int t = 0; t < numTokens; t++) {
+            buckets[t] = counts.bucket(vocabulary.token(t));
+            perBucket[buckets[t]]++;
+        }
+        int colliding = 0;
+        for (int t = 0; t < numTokens; t++) {
+            if (perBucket[buckets[t]] > 1) colliding++;
+        }
+        return colliding;
+    }
+
+    private static double accuracy(BatchPrediction predictions, Corpus testData) {
+        int correct = 0;
+        for (int i = 0; i < testData.size(); i++) {
+            if (testData.labelName(i).equals(predictions.label(i))) correct++;
+        }
+        return testData.isEmpty() ? 0 : (double) correct / testData.size();
+    }
+}
@@ -1,22 +1,26 @@
-import java.io.*;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class InteractiveTest {
     public static void main(String[] args) throws Exception {
-        // Charger le modèle sauvegardé
-        NaiveBayesModel model;
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream("naivebayes_model.ser"))) {
-            model = (NaiveBayesModel) ois.readObject();
-            System.out.println("✅ Modèle chargé avec succès !");
-        } catch (FileNotFoundException e) {
-            System.out.println("❌ Erreur : le fichier naivebayes_model.ser est introuvable.");
+        // Charger le modèle sauvegardé (format binaire ModelFile, projeté en mémoire)
+        Path modelPath = Paths.get(args.length >= 1 ? args[0] : "naivebayes_model.bin");
+        MappedModel model;
+        try {
+            long t0 = System.nanoTime();
+            model = MappedModel.open(modelPath);
+            System.out.println("✅ Modèle chargé avec succès ! (" + (System.nanoTime() - t0) / 1_000_000 + " ms)");
+        } catch (NoSuchFileException e) {
+            System.out.println("❌ Erreur : le fichier " + modelPath + " est introuvable.");
             System.out.println("👉 Lance d’abord NaiveBayesParallel pour entraîner et sauvegarder le modèle.");
             return;
         }
 
         // Scanner pour lire les entrées utilisateur
         Scanner scanner = new Scanner(System.in);
+        Tokenizer tokenizer = new Tokenizer(Tokenizer.REMOVE_STOPWORDS_BY_DEFAULT);   // comme DataPreprocessor
         System.out.println("\n=== Test interactif du classificateur Naïve Bayes ===");
         System.out.println("Tape un message à classifier (ou 'exit' pour quitter)");
 
@@ -34,8 +38,8 @@ public class InteractiveTest {
                 continue;
             }
 
-            // Découper le message en tokens (par mots séparés)
-            List<String> tokens = Arrays.asList(line.toLowerCase().split("\\s+"));
+            // Découper le message en tokens (même Tokenizer qu'à l'entraînement)
+            List<String> tokens = tokenizer.tokenize(line);
 
             // Prédire
             String prediction = model.predict(tokens);
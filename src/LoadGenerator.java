@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * LoadGenerator.java
+ *
+ * Générateur de charge local pour ClassificationServer : concurrency clients en boucle fermée
+ * envoient des lots de batchSize messages (tirés d'un fichier label \t message) pendant durationSeconds.
+ * Affiche le débit (requêtes/s, messages/s) et les latences p50 / p99 / p99.9 / max.
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java LoadGenerator <http://host:port> <messages.tsv> [concurrency] [durationSeconds] [batchSize]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0].replaceAll("/+$", "") + "/classify");
+        int concurrency = args.length >= 3 ? Integer.parseInt(args[2]) : 16;
+        int durationSeconds = args.length >= 4 ? Integer.parseInt(args[3]) : 10;
+        int batchSize = args.length >= 5 ? Integer.parseInt(args[4]) : 1;
+
+        // Messages : partie après le premier séparateur de chaque ligne
+        List<String> messages = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(args[1]))) {
+            int tab = line.indexOf('\t');
+            String msg = (tab >= 0 ? line.substring(tab + 1) : line).trim();
+            if (!msg.isEmpty()) messages.add(msg);
+        }
+        if (messages.isEmpty()) throw new IllegalArgumentException("aucun message dans " + args[1]);
+
+        ExecutorService clientPool = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder().executor(clientPool).build();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService exec = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            int seed = w;
+            futures.add(exec.submit(() -> run(client, uri, messages, batchSize, end, seed)));
+        }
+
+        long errors = 0;
+        List<long[]> all = new ArrayList<>();
+        int total = 0;
+        for (Future<long[]> f : futures) {
+            long[] r = f.get();
+            errors += r[0];
+            all.add(r);
+            total += r.length - 1;
+        }
+        exec.shutdown();
+        clientPool.shutdown();
+
+        long[] latencies = new long[total];
+        int k = 0;
+        for (long[] r : all) {
+            System.arraycopy(r, 1, latencies, k, r.length - 1);
+            k += r.length - 1;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf(Locale.ROOT, "Requêtes : %d (erreurs : %d) en %d s, %d clients, lots de %d%n",
+                total, errors, durationSeconds, concurrency, batchSize);
+        System.out.printf(Locale.ROOT, "Débit : %.0f req/s, %.0f messages/s%n",
+                total / (double) durationSeconds, (double) total * batchSize / durationSeconds);
+        System.out.printf(Locale.ROOT, "Latence (ms) : p50=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), total == 0 ? 0 : latencies[total - 1] / 1e6);
+    }
+
+    // Un client : [0] = nb d'erreurs, [1..] = latences des requêtes réussies en ns
+    private static long[] run(HttpClient client, URI uri, List<String> messages, int batchSize, long end, int seed)
+            throws InterruptedException {
+        Random rnd = new Random(seed);
+        long[] lat = new long[1024];
+        int n = 1;
+        while (System.nanoTime() < end) {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < batchSize; i++) {
+                body.append(messages.get(rnd.nextInt(messages.size()))).append('\n');
+            }
+            HttpRequest req = HttpRequest.newBuilder(uri)
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+            long t0 = System.nanoTime();
+            try {
+                HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+                long t1 = System.nanoTime();
+                if (resp.statusCode() != 200) {
+                    lat[0]++;
+                    continue;
+                }
+                if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                lat[n++] = t1 - t0;
+            } catch (IOException e) {
+                lat[0]++;
+            }
+        }
+        return Arrays.copyOf(lat, n);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, idx)] / 1e6;
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+/**
+ * Classe LongIndex
+ * Dictionnaire clé long -> id dense (0, 1, 2 ... dans l'ordre d'insertion), à adressage ouvert :
+ * équivalent de Vocabulary pour des clés primitives, sans objet par entrée (ni Long, ni nœud de HashMap).
+ * - slots : id + 1 de la clé rangée dans la case (0 = case vide), sondage linéaire, remplissage <= 1/2 ;
+ * - keys  : clés par id (parcours, fusion, élagage).
+ * Mémoire : 4 octets par case + 8 octets par clé. Non thread-safe (un index par thread, fusion ensuite).
+ */
+public final class LongIndex {
+
+    private int[] slots;
+    private long[] keys;
+    private int size = 0;
+    private int mask;
+
+    public LongIndex() {
+        this(16);
+    }
+
+    /**
+     * @param expected nb de clés attendu (évite les agrandissements)
+     */
+    public LongIndex(int expected) {
+        int capacity = 16;
+        while (capacity < 2L * expected) capacity <<= 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.keys = new long[Math.max(8, expected)];
+    }
+
+    /**
+     * Id de key, attribué (= size()) si la clé est nouvelle.
+     */
+    public int intern(long key) {
+        int i = slot(key);
+        int s;
+        while ((s = slots[i]) != 0) {
+            if (keys[s - 1] == key) return s - 1;
+            i = (i + 1) & mask;
+        }
+        if (size == keys.length) keys = Arrays.copyOf(keys, size * 2);
+        keys[size] = key;
+        slots[i] = ++size;
+        if (2 * size > slots.length) rehash();
+        return size - 1;
+    }
+
+    // Id de key, -1 si absente
+    public int idOf(long key) {
+        int i = slot(key);
+        int s;
+        while ((s = slots[i]) != 0) {
+            if (keys[s - 1] == key) return s - 1;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    public long key(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("id " + id + " / " + size);
+        return keys[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Mémoire occupée par les tableaux, en octets
+    public long footprintBytes() {
+        return 4L * slots.length + 8L * keys.length;
+    }
+
+    // Mélange des bits (finaliseur de MurmurHash3) : les clés packées ont leur entropie dans les bits de poids faible et fort
+    private int slot(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int i = slot(keys[id]);
+            while (slots[i] != 0) i = (i + 1) & mask;
+            slots[i] = id + 1;
+        }
+    }
+}
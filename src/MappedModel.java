@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Classe MappedModel
+ * Modèle lu directement dans l'image binaire d'un ModelFile, hors du tas : le chargement se limite à
+ * la projection (ou copie) + vérification des CRC, aucun objet n'est créé par mot du vocabulaire.
+ * La recherche d'un token passe par l'index de hachage du fichier (comparaison d'octets).
+ * Le tas occupé (labels, offsets) ne dépend pas de la taille du vocabulaire : les tables ne sont
+ * ni parcourues ni déplacées par le GC.
+ *
+ * Trois origines de l'image :
+ * - open : fichier projeté en mémoire (pages chargées à la demande, partagées entre processus, hors
+ *          de la limite de mémoire directe) ; le fichier doit être remplacé par renommage (ModelFile.write),
+ *          pas réécrit sur place ;
+ * - load : fichier copié en mémoire directe (résident, indépendant du fichier par la suite), limitée par
+ *          -XX:MaxDirectMemorySize (par défaut égale à -Xmx) : IOException au-delà ;
+ * - of   : modèle compilé encodé en mémoire directe (sans passer par un fichier), même limite.
+ *
+ * L'image est libérée par le GC avec l'instance (jamais explicitement : une instance encore référencée,
+ * ex. par un PredictionCache, reste toujours utilisable). Une projection (open) n'occupe que du cache de
+ * pages, récupérable par le système ; elle ne compte pas dans la limite de mémoire directe.
+ *
+ * Lectures absolues uniquement : une instance peut être utilisée par plusieurs threads.
+ */
+public final class MappedModel extends NaiveBayesScorer {
+
+    private final ByteBuffer buf;
+    private final String[] labels;
+    private final int numClasses;
+    private final int numTokens;
+    private final int hashMask;
+    private final int vocabOff;        // débuts des tokens
+    private final int bytesOff;        // octets des tokens
+    private final int indexOff;        // table de hachage
+    private final int priorsOff;       // log priors
+    private final int unseenOff;       // log P(inconnu|c)
+    private final int tableOff;        // log P(w|c)
+
+    private MappedModel(ByteBuffer buf) {
+        this.buf = buf;
+        this.labels = ModelFile.readLabels(buf);
+        this.numClasses = buf.getInt(ModelFile.OFF_NUM_CLASSES);
+        this.numTokens = buf.getInt(ModelFile.OFF_NUM_TOKENS);
+        this.hashMask = buf.getInt(ModelFile.OFF_HASH_SLOTS) - 1;
+        this.vocabOff = (int) buf.getLong(ModelFile.OFF_VOCAB);
+        this.bytesOff = vocabOff + 4 * (numTokens + 1);
+        this.indexOff = (int) buf.getLong(ModelFile.OFF_INDEX);
+        this.priorsOff = (int) buf.getLong(ModelFile.OFF_TABLES);
+        this.unseenOff = priorsOff + 8 * numClasses;
+        this.tableOff = unseenOff + 8 * numClasses;
+    }
+
+    /**
+     * Projette le fichier modèle (format ModelFile) et vérifie ses sommes de contrôle.
+     */
+    public static MappedModel open(Path path) throws IOException {
+        return new MappedModel(ModelFile.map(path));
+    }
+
+    /**
+     * Copie le fichier modèle (format ModelFile) en mémoire directe et vérifie ses sommes de contrôle :
+     * pas de défaut de page à la prédiction, et le fichier peut être réécrit ou supprimé ensuite.
+     */
+    public static MappedModel load(Path path) throws IOException {
+        return new MappedModel(ModelFile.readDirect(path));
+    }
+
+    /**
+     * Copie hors du tas d'un modèle compilé (même image que le fichier écrit par ModelFile.write) ;
+     * le CompiledModel peut ensuite être libéré.
+     */
+    public static MappedModel of(CompiledModel model) {
+        return new MappedModel(ModelFile.encode(model));
+    }
+
+    // Mêmes valeurs que les tables de CompiledModel, lues dans l'image
+    @Override
+    double logPrior(int c) {
+        return buf.getDouble(priorsOff + 8 * c);
+    }
+
+    @Override
+    void addLogLikelihoods(int tokenId, double[] scores) {
+        int row = tokenId < 0 ? unseenOff : tableOff + 8 * tokenId * numClasses;
+        for (int c = 0; c < numClasses; c++) {
+            scores[c] += buf.getDouble(row + 8 * c);
+        }
+    }
+
+    @Override
+    String label(int c) {
+        return labels[c];
+    }
+
+    /**
+     * Id du token dans le fichier, ou -1 s'il est inconnu.
+     */
+    @Override
+    public int idOf(String token) {
+        byte[] utf8 = isAscii(token) ? null : token.getBytes(StandardCharsets.UTF_8);
+        int h = utf8 == null ? TokenIdCache.hash(token) : TokenIdCache.hash(utf8, 0, utf8.length);
+        int slot = h & hashMask;
+        int entry;
+        while ((entry = buf.getInt(indexOff + 4 * slot)) != 0) {
+            int id = entry - 1;
+            if (utf8 == null ? sameAscii(id, token) : sameBytes(id, utf8)) return id;
+            slot = (slot + 1) & hashMask;
+        }
+        return -1;
+    }
+
+    @Override
+    public int numClasses() {
+        return numClasses;
+    }
+
+    public int numTokens() {
+        return numTokens;
+    }
+
+    // Taille de l'image du modèle (hors du tas), en octets
+    public long footprintBytes() {
+        return buf.capacity();
+    }
+
+    private boolean sameAscii(int id, String token) {
+        int from = buf.getInt(vocabOff + 4 * id);
+        int len = buf.getInt(vocabOff + 4 * (id + 1)) - from;
+        if (len != token.length()) return false;
+        int p = bytesOff + from;
+        for (int i = 0; i < len; i++) {
+            if (buf.get(p + i) != (byte) token.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean sameBytes(int id, byte[] utf8) {
+        int from = buf.getInt(vocabOff + 4 * id);
+        int len = buf.getInt(vocabOff + 4 * (id + 1)) - from;
+        if (len != utf8.length) return false;
+        int p = bytesOff + from;
+        for (int i = 0; i < len; i++) {
+            if (buf.get(p + i) != utf8[i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
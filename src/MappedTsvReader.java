@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * MappedTsvReader.java
+ *
+ * Lecture parallèle d'un fichier "label<espaces>tokens" (train.tsv / test.tsv) :
+ * - le fichier est découpé en plages d'octets alignées sur les fins de ligne ;
+ * - chaque plage est projetée en mémoire (FileChannel.map) et analysée par un thread ;
+ * - les messages sont tokenisés (Tokenizer) et convertis en ids directement depuis les octets
+ *   (TokenIdCache), sans String par ligne, dans un Corpus par plage ; les plages sont concaténées.
+ * L'ordre des lignes du fichier est conservé.
+ */
+public final class MappedTsvReader {
+
+    // Taille max d'une plage projetée (un MappedByteBuffer est limité à 2 Go)
+    private static final long MAX_RANGE = 1L << 30;
+
+    private MappedTsvReader() {
+    }
+
+    /**
+     * Charge le fichier avec des dictionnaires neufs, sur tous les cœurs.
+     */
+    public static Corpus load(Path path) throws IOException {
+        return load(path, new Vocabulary(), new Vocabulary(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Charge le fichier ; les tokens et classes sont ajoutés aux dictionnaires fournis.
+     * Les messages sont déjà prétraités (DataPreprocessor) : stopwords conservés tels qu'écrits.
+     * @param parallelism nb de threads d'analyse
+     */
+    public static Corpus load(Path path, Vocabulary vocabulary, Vocabulary labels, int parallelism)
+            throws IOException {
+        return load(path, vocabulary, labels, parallelism, false);
+    }
+
+    /**
+     * Idem, en choisissant l'option stopwords du Tokenizer appliqué aux messages (true : retire en plus
+     * les stopwords encore présents dans le fichier, ex. grille de CrossValidator).
+     * Corpus relu de CorpusCache si le fichier a déjà été analysé avec ces options, puis exprimé
+     * dans les dictionnaires fournis.
+     */
+    public static Corpus load(Path path, Vocabulary vocabulary, Vocabulary labels, int parallelism,
+                              boolean removeStopwords) throws IOException {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        Corpus data = CorpusCache.ENABLED
+                ? CorpusCache.get(path, "tsv;stopwords=" + removeStopwords,
+                        () -> parse(path, new Vocabulary(), new Vocabulary(), parallelism, removeStopwords))
+                        .remap(vocabulary, labels)
+                : parse(path, vocabulary, labels, parallelism, removeStopwords);
+        if (Metrics.ENABLED) Metrics.recordLoad(data.size(), System.nanoTime() - t0);
+        return data;
+    }
+
+    // Analyse du fichier : une plage d'octets par thread, plages concaténées dans l'ordre
+    private static Corpus parse(Path path, Vocabulary vocabulary, Vocabulary labels, int parallelism,
+                                boolean removeStopwords) throws IOException {
+        return Corpus.concat(forEachRange(path, parallelism,
+                (channel, start, end) -> parseRange(channel, start, end, vocabulary, labels, removeStopwords)),
+                vocabulary, labels);
+    }
+
+    /**
+     * Mode "hashing trick" : compte les tokens directement dans une table de numBuckets seaux
+     * par classe, sans créer de String ni de dictionnaire des mots (mémoire fixe).
+     * @param labels dictionnaire des classes
+     */
+    public static HashedPartialResult loadHashed(Path path, int numBuckets, Vocabulary labels, int parallelism)
+            throws IOException {
+        HashedPartialResult global = new HashedPartialResult(numBuckets, labels);
+        for (HashedPartialResult part : forEachRange(path, parallelism,
+                (channel, start, end) -> hashRange(channel, start, end, numBuckets, labels))) {
+            global.mergeIn(part);
+        }
+        return global;
+    }
+
+    /**
+     * Découpe le fichier en au plus numShards plages d'octets alignées sur les fins de ligne,
+     * de tailles voisines : bornes [0, b1, ..., taille], la plage i est [b(i), b(i+1)).
+     */
+    public static long[] shards(Path path, int numShards) throws IOException {
+        if (numShards <= 0) throw new IllegalArgumentException("numShards must be > 0");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(0L);
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            for (int i = 1; i < numShards; i++) {
+                long next = nextLineStart(channel, Math.max(size * i / numShards, bounds.get(bounds.size() - 1)), probe);
+                if (next > bounds.get(bounds.size() - 1) && next < size) bounds.add(next);
+            }
+            bounds.add(size);
+            return bounds.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    /**
+     * Charge les lignes de la plage [start, end) (start au début d'une ligne), sur un thread.
+     */
+    public static Corpus loadRange(Path path, long start, long end, Vocabulary vocabulary,
+                                   Vocabulary labels) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (start < 0 || start > end || end > size) {
+                throw new IllegalArgumentException("plage [" + start + ", " + end + ") hors du fichier (" + size + " octets)");
+            }
+            List<Corpus> parts = new ArrayList<>();
+            // Plages projetées de MAX_RANGE au plus, coupées sur les fins de ligne
+            ByteBuffer probe = ByteBuffer.allocate(8192);
+            long pos = start;
+            while (pos < end) {
+                long next = end - pos <= MAX_RANGE ? end : Math.min(end, nextLineStart(channel, pos + MAX_RANGE - 8192, probe));
+                parts.add(parseRange(channel, pos, next, vocabulary, labels, false));
+                pos = next;
+            }
+            return parts.size() == 1 ? parts.get(0) : Corpus.concat(parts, vocabulary, labels);
+        }
+    }
+
+    // Traitement d'une plage d'octets [start, end) du fichier
+    private interface RangeTask<T> {
+        T run(FileChannel channel, long start, long end) throws IOException;
+    }
+
+    // Découpe le fichier en plages alignées sur les lignes et les traite sur parallelism threads (résultats dans l'ordre)
+    private static <T> List<T> forEachRange(Path path, int parallelism, RangeTask<T> task) throws IOException {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitOnLines(channel, parallelism);
+            int numRanges = bounds.length - 1;
+
+            // Pool partagé (SharedPools) : pas de création de threads à chaque chargement
+            ForkJoinPool pool = SharedPools.get(parallelism);
+            List<Future<T>> futures = new ArrayList<>();
+            try {
+                for (int r = 0; r < numRanges; r++) {
+                    long start = bounds[r];
+                    long end = bounds[r + 1];
+                    futures.add(pool.submit(() -> task.run(channel, start, end)));
+                }
+
+                List<T> results = new ArrayList<>(numRanges);
+                for (Future<T> f : futures) {
+                    results.add(f.get());
+                }
+                return results;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("lecture interrompue : " + path, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException("erreur de lecture : " + path, cause);
+            } finally {
+                // Erreur : les plages restantes sont abandonnées (pool partagé, non fermé)
+                for (Future<T> f : futures) f.cancel(true);
+            }
+        }
+    }
+
+    // Bornes [b0=0, b1, ..., bn=taille] ; chaque bi (0 < i < n) est juste après un '\n'
+    static long[] splitOnLines(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        int n = (int) Math.max(parallelism * 4L, (size + MAX_RANGE - 1) / MAX_RANGE);
+        n = (int) Math.max(1, Math.min(n, size / 4096 + 1)); // pas de plages minuscules
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        for (int i = 1; i < n; i++) {
+            long pos = Math.max(size * i / n, bounds.get(bounds.size() - 1));
+            long next = nextLineStart(channel, pos, probe);
+            if (next > bounds.get(bounds.size() - 1) && next < size) bounds.add(next);
+        }
+        bounds.add(size);
+
+        long[] out = new long[bounds.size()];
+        for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+        return out;
+    }
+
+    // Position du premier octet après le prochain '\n' à partir de pos (ou taille du fichier)
+    private static long nextLineStart(FileChannel channel, long pos, ByteBuffer probe) throws IOException {
+        long size = channel.size();
+        while (pos < size) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    // Analyse les lignes de [start, end)
+    private static Corpus parseRange(FileChannel channel, long start, long end, Vocabulary vocabulary,
+                                     Vocabulary labels, boolean removeStopwords) throws IOException {
+        Corpus.Builder data = new Corpus.Builder(vocabulary, labels);
+        if (end <= start) return data.build();
+
+        long allocated = Metrics.ENABLED ? Metrics.allocatedBytes() : -1;
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        TokenIdCache tokenIds = new TokenIdCache(vocabulary);
+        TokenIdCache labelIds = new TokenIdCache(labels);
+        Tokenizer tokenizer = new Tokenizer(removeStopwords);
+
+        int limit = buf.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int eol = pos;
+            while (eol < limit && buf.get(eol) != '\n') eol++;
+
+            // Label : premier champ de la ligne
+            int p = skipSpaces(buf, pos, eol);
+            int labelStart = p;
+            while (p < eol && !isSpace(buf.get(p))) p++;
+            int labelEnd = p;
+
+            // Ligne vide ou sans séparateur après le label : ignorée
+            if (labelEnd > labelStart && p < eol) {
+                int count = tokenizer.tokenizeIds(buf, p, eol, tokenIds);
+                data.add(labelIds.intern(buf, labelStart, labelEnd - labelStart), tokenizer.ids(), count);
+            }
+            pos = eol + 1;
+        }
+        if (Metrics.ENABLED && allocated >= 0) {
+            Metrics.recordParseAllocation(data.size(), Metrics.allocatedBytes() - allocated);
+        }
+        return data.build();
+    }
+
+    // Comptages hachés des lignes de [start, end) (fichier prétraité : pas de re-filtrage, comme load)
+    private static HashedPartialResult hashRange(FileChannel channel, long start, long end, int numBuckets,
+                                                 Vocabulary labels) throws IOException {
+        HashedPartialResult pr = new HashedPartialResult(numBuckets, labels);
+        if (end <= start) return pr;
+
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        TokenIdCache labelIds = new TokenIdCache(labels);
+        Tokenizer tokenizer = new Tokenizer(false);
+        int[] label = new int[1];
+        Tokenizer.TokenSink sink = (b, n) -> pr.addToken(label[0], pr.bucket(b, n));
+
+        int limit = buf.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int eol = pos;
+            while (eol < limit && buf.get(eol) != '\n') eol++;
+
+            int p = skipSpaces(buf, pos, eol);
+            int labelStart = p;
+            while (p < eol && !isSpace(buf.get(p))) p++;
+            int labelEnd = p;
+
+            if (labelEnd > labelStart && p < eol) {
+                label[0] = labelIds.intern(buf, labelStart, labelEnd - labelStart);
+                pr.addDocument(label[0]);
+                tokenizer.scan(buf, p, eol, sink);
+            }
+            pos = eol + 1;
+        }
+        return pr;
+    }
+
+    private static int skipSpaces(ByteBuffer buf, int p, int end) {
+        while (p < end && isSpace(buf.get(p))) p++;
+        return p;
+    }
+
+    // Séparateurs entre le label et le message
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+}
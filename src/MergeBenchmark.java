@@ -0,0 +1,76 @@
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MergeBenchmark.java
+ *
+ * Mesure le temps d'agrégation des PartialResult (SERIAL vs TREE) en fonction du nb de threads.
+ * Les résultats partiels sont calculés hors chronomètre, seule la fusion est mesurée.
+ * scale > 1 duplique le corpus avec des mots suffixés pour agrandir le vocabulaire
+ * (le coût d'une fusion est proportionnel à la taille du vocabulaire).
+ *
+ * Sortie CSV sur la console : threads,mode,vocabulary,merge_ms (médiane des répétitions)
+ */
+public class MergeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java MergeBenchmark <train.tsv> [maxThreads] [scale] [repetitions]");
+            System.exit(1);
+        }
+        int maxThreads = args.length >= 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int scale = args.length >= 3 ? Integer.parseInt(args[2]) : 10;
+        int repetitions = args.length >= 4 ? Integer.parseInt(args[3]) : 5;
+
+        Corpus data = scaleCorpus(MappedTsvReader.load(Paths.get(args[0])), scale);
+
+        System.out.println("threads,mode,vocabulary,merge_ms");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            for (PartialResultReducer.Mode mode : new PartialResultReducer.Mode[] {
+                    PartialResultReducer.Mode.SERIAL, PartialResultReducer.Mode.TREE }) {
+                double[] times = new double[repetitions];
+                int vocabularySize = 0;
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                for (int r = 0; r < repetitions; r++) {
+                    List<PartialResult> parts = partials(data, threads);
+
+                    long t0 = System.nanoTime();
+                    PartialResult global = mode == PartialResultReducer.Mode.TREE
+                            ? PartialResultReducer.mergeTree(parts, pool)
+                            : PartialResultReducer.mergeSerial(parts);
+                    times[r] = (System.nanoTime() - t0) / 1e6;
+                    vocabularySize = global.vocabulary.size();
+                }
+                pool.shutdown();
+                Arrays.sort(times);
+                System.out.printf(Locale.ROOT, "%d,%s,%d,%.3f%n", threads, mode, vocabularySize, times[repetitions / 2]);
+            }
+        }
+    }
+
+    // Un PartialResult par thread (dictionnaires partagés, comme dans NaiveBayesParallel)
+    private static List<PartialResult> partials(Corpus data, int threads) {
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        List<PartialResult> parts = new ArrayList<>();
+        for (Corpus chunk : data.chunks(threads)) {
+            parts.add(new DataChunkTrainer(chunk, vocabulary, labels).call());
+        }
+        return parts;
+    }
+
+    // Copie i (0 <= i < scale) : chaque mot devient "mot_i" => vocabulaire multiplié par scale
+    private static Corpus scaleCorpus(Corpus data, int scale) {
+        if (scale <= 1) return data;
+        Corpus.Builder out = new Corpus.Builder(new Vocabulary(), new Vocabulary());
+        for (int i = 0; i < scale; i++) {
+            for (int d = 0; d < data.size(); d++) {
+                List<String> tokens = new ArrayList<>(data.length(d));
+                for (String t : data.tokens(d)) tokens.add(t + "_" + i);
+                out.add(data.labelName(d), tokens);
+            }
+        }
+        return out.build();
+    }
+}
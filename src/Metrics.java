@@ -0,0 +1,284 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe Metrics
+ * Instrumentation des chemins critiques : latence de predict, durée et débit de chaque chunk
+ * d'entraînement, durée des fusions, durée des chargements, octets alloués par document.
+ *
+ * Activation au lancement : -Dnaivebayes.metrics=true
+ * - ENABLED est une constante (static final) : désactivé, le JIT supprime les branches
+ *   "if (Metrics.ENABLED)" des chemins instrumentés, le coût est nul ;
+ * - activé, les mesures sont exposées par JMX (naivebayes:type=Metrics) et, avec
+ *   -Dnaivebayes.metrics.dumpSeconds=N, affichées toutes les N secondes sur la sortie d'erreur.
+ */
+public final class Metrics implements MetricsMBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("naivebayes.metrics");
+
+    static final LatencyHistogram PREDICT = new LatencyHistogram();
+    static final LatencyHistogram CHUNK = new LatencyHistogram();
+    static final LatencyHistogram MERGE = new LatencyHistogram();
+    static final LatencyHistogram LOAD = new LatencyHistogram();
+
+    private static final LongAdder trainTokens = new LongAdder();
+    private static final LongAdder trainNanos = new LongAdder();
+    private static final LongAdder trainAllocated = new LongAdder();
+    private static final LongAdder trainDocs = new LongAdder();
+    private static final LongAdder loadDocs = new LongAdder();
+    private static final LongAdder loadAllocated = new LongAdder();
+    private static final LongAdder parsedDocs = new LongAdder();
+
+    // Derniers chunks entraînés (repérer les retardataires), en anneau
+    private static final int RECENT_CHUNKS = 32;
+    private static final AtomicReferenceArray<String> recentChunks = new AtomicReferenceArray<>(RECENT_CHUNKS);
+    private static final AtomicLong chunkSeq = new AtomicLong();
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static ScheduledExecutorService dumper;
+
+    static {
+        if (ENABLED) {
+            register();
+            long dumpSeconds = Long.getLong("naivebayes.metrics.dumpSeconds", 0);
+            if (dumpSeconds > 0) startDump(dumpSeconds);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Chunk d'entraînement terminé (allocatedBytes < 0 : mesure indisponible).
+     */
+    static void recordChunk(int docs, long tokens, long nanos, long allocatedBytes) {
+        CHUNK.record(nanos);
+        trainTokens.add(tokens);
+        trainNanos.add(nanos);
+        if (allocatedBytes >= 0) {
+            trainAllocated.add(allocatedBytes);
+            trainDocs.add(docs);
+        }
+        String entry = String.format(Locale.ROOT, "%s docs=%d tokens=%d ms=%.3f tokens/s=%.0f",
+                Thread.currentThread().getName(), docs, tokens, nanos / 1e6, nanos == 0 ? 0 : tokens * 1e9 / nanos);
+        recentChunks.set((int) (chunkSeq.getAndIncrement() % RECENT_CHUNKS), entry);
+    }
+
+    /**
+     * Fichier chargé (lecture + analyse) : durée totale et nb de documents.
+     */
+    static void recordLoad(int docs, long nanos) {
+        LOAD.record(nanos);
+        loadDocs.add(docs);
+    }
+
+    /**
+     * Octets alloués par le thread courant pendant l'analyse de docs documents.
+     */
+    static void recordParseAllocation(int docs, long allocatedBytes) {
+        if (allocatedBytes < 0) return;
+        loadAllocated.add(allocatedBytes);
+        parsedDocs.add(docs);
+    }
+
+    /**
+     * Octets alloués jusqu'ici par le thread courant (-1 si la JVM ne le mesure pas).
+     */
+    static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) THREADS;
+            if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+                return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Enregistre le MBean (sans effet s'il l'est déjà).
+     */
+    public static synchronized void register() {
+        try {
+            ObjectName name = new ObjectName("naivebayes:type=Metrics");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), name);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ MBean Metrics non enregistré : " + e);
+        }
+    }
+
+    /**
+     * Affiche summary() toutes les periodSeconds secondes (thread démon).
+     */
+    public static synchronized void startDump(long periodSeconds) {
+        if (dumper != null) return;
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> System.err.println(summary()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Résumé sur une ligne de toutes les mesures.
+     */
+    public static String summary() {
+        Metrics m = new Metrics();
+        return String.format(Locale.ROOT,
+                "[metrics] predict n=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus"
+                        + " | chunks n=%d mean=%.2fms max=%.2fms %.0f tokens/s %.0f B/doc"
+                        + " | merge n=%d mean=%.2fms max=%.2fms"
+                        + " | load n=%d docs=%d mean=%.2fms %.0f B/doc",
+                m.getPredictCount(), m.getPredictP50Micros(), m.getPredictP99Micros(), m.getPredictP999Micros(),
+                m.getPredictMaxMicros(),
+                m.getChunkCount(), m.getChunkMeanMillis(), m.getChunkMaxMillis(), m.getTrainTokensPerSecond(),
+                m.getTrainAllocatedBytesPerDocument(),
+                m.getMergeCount(), m.getMergeMeanMillis(), m.getMergeMaxMillis(),
+                m.getLoadCount(), m.getLoadedDocuments(), m.getLoadMeanMillis(), m.getLoadAllocatedBytesPerDocument());
+    }
+
+    @Override
+    public long getPredictCount() {
+        return PREDICT.count();
+    }
+
+    @Override
+    public double getPredictMeanMicros() {
+        return PREDICT.mean() / 1e3;
+    }
+
+    @Override
+    public double getPredictP50Micros() {
+        return PREDICT.quantile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getPredictP99Micros() {
+        return PREDICT.quantile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getPredictP999Micros() {
+        return PREDICT.quantile(0.999) / 1e3;
+    }
+
+    @Override
+    public double getPredictMaxMicros() {
+        return PREDICT.max() / 1e3;
+    }
+
+    @Override
+    public long getChunkCount() {
+        return CHUNK.count();
+    }
+
+    @Override
+    public double getChunkMeanMillis() {
+        return CHUNK.mean() / 1e6;
+    }
+
+    @Override
+    public double getChunkP99Millis() {
+        return CHUNK.quantile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getChunkMaxMillis() {
+        return CHUNK.max() / 1e6;
+    }
+
+    // Débit moyen d'un thread d'entraînement
+    @Override
+    public double getTrainTokensPerSecond() {
+        long nanos = trainNanos.sum();
+        return nanos == 0 ? 0 : trainTokens.sum() * 1e9 / nanos;
+    }
+
+    // Du plus récent au plus ancien
+    @Override
+    public String[] getRecentChunks() {
+        List<String> out = new ArrayList<>();
+        long seq = chunkSeq.get();
+        for (long i = seq - 1; i >= Math.max(0, seq - RECENT_CHUNKS); i--) {
+            String entry = recentChunks.get((int) (i % RECENT_CHUNKS));
+            if (entry != null) out.add(entry);
+        }
+        return out.toArray(new String[0]);
+    }
+
+    @Override
+    public long getMergeCount() {
+        return MERGE.count();
+    }
+
+    @Override
+    public double getMergeMeanMillis() {
+        return MERGE.mean() / 1e6;
+    }
+
+    @Override
+    public double getMergeMaxMillis() {
+        return MERGE.max() / 1e6;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return LOAD.count();
+    }
+
+    @Override
+    public long getLoadedDocuments() {
+        return loadDocs.sum();
+    }
+
+    @Override
+    public double getLoadMeanMillis() {
+        return LOAD.mean() / 1e6;
+    }
+
+    @Override
+    public double getLoadMaxMillis() {
+        return LOAD.max() / 1e6;
+    }
+
+    @Override
+    public double getTrainAllocatedBytesPerDocument() {
+        long docs = trainDocs.sum();
+        return docs == 0 ? 0 : (double) trainAllocated.sum() / docs;
+    }
+
+    @Override
+    public double getLoadAllocatedBytesPerDocument() {
+        long docs = parsedDocs.sum();
+        return docs == 0 ? 0 : (double) loadAllocated.sum() / docs;
+    }
+
+    @Override
+    public void reset() {
+        PREDICT.reset();
+        CHUNK.reset();
+        MERGE.reset();
+        LOAD.reset();
+        trainTokens.reset();
+        trainNanos.reset();
+        trainAllocated.reset();
+        trainDocs.reset();
+        loadDocs.reset();
+        loadAllocated.reset();
+        parsedDocs.reset();
+        for (int i = 0; i < RECENT_CHUNKS; i++) recentChunks.set(i, null);
+        chunkSeq.set(0);
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Interface JMX de Metrics (MBean standard "naivebayes:type=Metrics").
+ * Durées en microsecondes pour la prédiction, en millisecondes pour le reste.
+ */
+public interface MetricsMBean {
+
+    long getPredictCount();
+
+    double getPredictMeanMicros();
+
+    double getPredictP50Micros();
+
+    double getPredictP99Micros();
+
+    double getPredictP999Micros();
+
+    double getPredictMaxMicros();
+
+    long getChunkCount();
+
+    double getChunkMeanMillis();
+
+    double getChunkP99Millis();
+
+    double getChunkMaxMillis();
+
+    double getTrainTokensPerSecond();
+
+    String[] getRecentChunks();
+
+    long getMergeCount();
+
+    double getMergeMeanMillis();
+
+    double getMergeMaxMillis();
+
+    long getLoadCount();
+
+    long getLoadedDocuments();
+
+    double getLoadMeanMillis();
+
+    double getLoadMaxMillis();
+
+    double getTrainAllocatedBytesPerDocument();
+
+    double getLoadAllocatedBytesPerDocument();
+
+    void reset();
+}
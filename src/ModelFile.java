@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * ModelFile.java
+ *
+ * Format binaire versionné d'un CompiledModel (remplace la sérialisation Java).
+ * Tous les entiers/réels sont en little-endian.
+ *
+ * En-tête (HEADER_SIZE octets) :
+ *   0  magic "NBMF"        4  version            8  nb classes       12 nb tokens
+ *   16 nb cases index      20 CRC32 de l'en-tête (calculé avec ce champ à 0)
+ *   24 offset labels       32 offset vocabulaire 40 offset index     48 offset tables
+ *   56 taille du fichier   64 CRC32 labels       68 CRC32 vocabulaire
+ *   72 CRC32 index         76 CRC32 tables       80..95 réservé
+ * Sections :
+ *   labels      : pour chaque classe, int longueur + octets UTF-8
+ *   vocabulaire : int[nbTokens + 1] débuts des tokens, puis les octets UTF-8 des tokens bout à bout
+ *   index       : table de hachage int[nbCases] (id + 1, 0 = vide), hachage TokenIdCache.hash des octets
+ *   tables      : double[nbClasses] log priors, double[nbClasses] log P(inconnu|c),
+ *                 double[nbTokens * nbClasses] log P(w|c) rangés [idMot * nbClasses + c]
+ *
+ * L'index permet de prédire directement depuis le fichier projeté en mémoire (MappedModel),
+ * sans reconstruire de structure sur le tas.
+ */
+public final class ModelFile {
+
+    static final int MAGIC = 0x464D424E;   // "NBMF" lu en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 96;
+
+    static final int OFF_NUM_CLASSES = 8;
+    static final int OFF_NUM_TOKENS = 12;
+    static final int OFF_HASH_SLOTS = 16;
+    static final int OFF_HEADER_CRC = 20;
+    static final int OFF_LABELS = 24;
+    static final int OFF_VOCAB = 32;
+    static final int OFF_INDEX = 40;
+    static final int OFF_TABLES = 48;
+    static final int OFF_FILE_LENGTH = 56;
+    static final int OFF_SECTION_CRCS = 64;
+
+    private ModelFile() {
+    }
+
+    /**
+     * Écrit le modèle dans path (fichier temporaire puis renommage atomique). Les sections sont encodées
+     * l'une après l'autre dans un petit tampon direct réutilisé et écrites par FileChannel.write (disque
+     * plein : IOException, pas de projection en écriture), l'en-tête en dernier.
+     */
+    public static void write(CompiledModel model, Path path) throws IOException {
+        Layout layout = new Layout(model);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ch.position(HEADER_SIZE);
+                ByteBuffer header = encode(model, layout, ch);
+                while (header.hasRemaining()) ch.write(header, header.position());
+                ch.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);   // échec (disque plein...) : pas de fichier temporaire orphelin
+        }
+    }
+
+    /**
+     * Encode le modèle dans un buffer direct, hors du tas (position 0, limite = taille du fichier) ;
+     * IllegalStateException si la mémoire directe disponible ne suffit pas.
+     */
+    static ByteBuffer encode(CompiledModel model) {
+        Layout layout = new Layout(model);
+        ByteBuffer buf;
+        try {
+            buf = allocateDirect(layout.fileLength, "le modèle compilé");
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        buf.position(HEADER_SIZE);
+        WritableByteChannel into = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int n = src.remaining();
+                buf.put(src);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            buf.put(0, encode(model, layout, into), 0, HEADER_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);     // écriture en mémoire : impossible
+        }
+        return buf.clear();
+    }
+
+    /**
+     * Taille du fichier qu'écrirait write(model), sans l'encoder.
+     */
+    static long size(CompiledModel model) {
+        return new Layout(model).fileLength;
+    }
+
+    // Buffer direct de bytes octets ; IOException si la mémoire directe (-XX:MaxDirectMemorySize,
+    // égale par défaut à -Xmx) ne suffit pas
+    private static ByteBuffer allocateDirect(long bytes, Object what) throws IOException {
+        try {
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (OutOfMemoryError e) {
+            throw new IOException("mémoire directe insuffisante pour " + what + " (" + bytes
+                    + " octets) : augmenter -XX:MaxDirectMemorySize ou utiliser MappedModel.open", e);
+        }
+    }
+
+    // Taille des sections et position de chacune dans le fichier
+    private static final class Layout {
+        final byte[][] labelBytes;
+        final int hashSlots;
+        final long labelsOff;
+        final long vocabOff;
+        final long indexOff;
+        final long tablesOff;
+        final long fileLength;
+
+        Layout(CompiledModel model) {
+            int numClasses = model.numClasses();
+            int numTokens = model.numTokens();
+            labelBytes = new byte[numClasses][];
+            long labelsLen = 0;
+            for (int c = 0; c < numClasses; c++) {
+                labelBytes[c] = model.label(c).getBytes(StandardCharsets.UTF_8);
+                labelsLen += 4 + labelBytes[c].length;
+            }
+            long tokensLen = 0;
+            for (int t = 0; t < numTokens; t++) {
+                tokensLen += utf8Length(model.vocabulary().token(t));
+            }
+            hashSlots = Integer.highestOneBit(Math.max(2, numTokens) * 2 - 1) * 2;  // charge <= 50 %
+
+            labelsOff = HEADER_SIZE;
+            vocabOff = align(labelsOff + labelsLen, 4);
+            indexOff = align(vocabOff + 4L * (numTokens + 1) + tokensLen, 4);
+            tablesOff = align(indexOff + 4L * hashSlots, 8);
+            fileLength = tablesOff + 8L * (2L * numClasses + (long) numTokens * numClasses);
+            if (fileLength > Integer.MAX_VALUE) throw new IllegalArgumentException("modèle trop gros : " + fileLength);
+        }
+    }
+
+    // Écrit les sections dans out (à partir de HEADER_SIZE) et retourne l'en-tête (position 0)
+    private static ByteBuffer encode(CompiledModel model, Layout layout, WritableByteChannel out) throws IOException {
+        int numClasses = model.numClasses();
+        int numTokens = model.numTokens();
+        Vocabulary vocabulary = model.vocabulary();
+        int hashSlots = layout.hashSlots;
+        SectionWriter w = new SectionWriter(out, HEADER_SIZE);
+        int[] crcs = new int[4];
+
+        // Labels
+        for (byte[] b : layout.labelBytes) w.putInt(b.length).put(b);
+        w.padTo(layout.vocabOff);
+        crcs[0] = w.endSection();
+
+        // Vocabulaire : débuts des tokens puis octets ; index de hachage (sondage linéaire) au passage
+        int[] index = new int[hashSlots];
+        int mask = hashSlots - 1;
+        int start = 0;
+        for (int t = 0; t < numTokens; t++) {
+            byte[] b = vocabulary.token(t).getBytes(StandardCharsets.UTF_8);
+            w.putInt(start);
+            start += b.length;
+
+            int slot = TokenIdCache.hash(b, 0, b.length) & mask;
+            while (index[slot] != 0) slot = (slot + 1) & mask;
+            index[slot] = t + 1;
+        }
+        w.putInt(start);
+        for (int t = 0; t < numTokens; t++) w.put(vocabulary.token(t).getBytes(StandardCharsets.UTF_8));
+        w.padTo(layout.indexOff);
+        crcs[1] = w.endSection();
+
+        for (int slot : index) w.putInt(slot);
+        w.padTo(layout.tablesOff);
+        crcs[2] = w.endSection();
+
+        // Tables de log-probabilités
+        for (int c = 0; c < numClasses; c++) w.putDouble(model.logPrior(c));
+        for (int c = 0; c < numClasses; c++) w.putDouble(model.unseenLogProb(c));
+        for (int t = 0; t < numTokens; t++) {
+            for (int c = 0; c < numClasses; c++) w.putDouble(model.logLikelihood(t, c));
+        }
+        crcs[3] = w.endSection();
+        if (w.position() != layout.fileLength) throw new IllegalStateException("taille encodée incohérente");
+
+        // En-tête + sommes de contrôle
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC).putInt(4, VERSION).putInt(OFF_NUM_CLASSES, numClasses)
+              .putInt(OFF_NUM_TOKENS, numTokens).putInt(OFF_HASH_SLOTS, hashSlots)
+              .putLong(OFF_LABELS, layout.labelsOff).putLong(OFF_VOCAB, layout.vocabOff)
+              .putLong(OFF_INDEX, layout.indexOff).putLong(OFF_TABLES, layout.tablesOff)
+              .putLong(OFF_FILE_LENGTH, layout.fileLength);
+        for (int s = 0; s < 4; s++) header.putInt(OFF_SECTION_CRCS + 4 * s, crcs[s]);
+        header.putInt(OFF_HEADER_CRC, crc(header, 0, HEADER_SIZE));
+        return header;
+    }
+
+    // Écriture séquentielle par un tampon direct de 64 Kio réutilisé, avec le CRC32 de la section en cours
+    private static final class SectionWriter {
+        private final WritableByteChannel out;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+        private long written;                   // position dans le fichier du début de buf
+
+        SectionWriter(WritableByteChannel out, long position) {
+            this.out = out;
+            this.written = position;
+        }
+
+        long position() {
+            return written + buf.position();
+        }
+
+        SectionWriter putInt(int v) throws IOException {
+            if (buf.remaining() < 4) flush();
+            buf.putInt(v);
+            return this;
+        }
+
+        SectionWriter putDouble(double v) throws IOException {
+            if (buf.remaining() < 8) flush();
+            buf.putDouble(v);
+            return this;
+        }
+
+        SectionWriter put(byte[] b) throws IOException {
+            for (int off = 0; off < b.length; ) {
+                if (!buf.hasRemaining()) flush();
+                int n = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, n);
+                off += n;
+            }
+            return this;
+        }
+
+        // Zéros jusqu'à offset (alignement de la section suivante)
+        void padTo(long offset) throws IOException {
+            while (position() < offset) {
+                if (!buf.hasRemaining()) flush();
+                buf.put((byte) 0);
+            }
+        }
+
+        // Fin de section : tampon écrit, CRC de la section retourné puis remis à zéro
+        int endSection() throws IOException {
+            flush();
+            int value = (int) crc.getValue();
+            crc.reset();
+            return value;
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.duplicate());
+            written += buf.remaining();
+            while (buf.hasRemaining()) out.write(buf);
+            buf.clear();
+        }
+    }
+
+    /**
+     * Relit un fichier en CompiledModel sur le tas (vocabulaire reconstruit).
+     */
+    public static CompiledModel read(Path path) throws IOException {
+        ByteBuffer buf = map(path);
+        int numClasses = buf.getInt(OFF_NUM_CLASSES);
+        int numTokens = buf.getInt(OFF_NUM_TOKENS);
+
+        String[] labels = readLabels(buf);
+
+        Vocabulary vocabulary = new Vocabulary();
+        int vocabOff = (int) buf.getLong(OFF_VOCAB);
+        int bytesOff = vocabOff + 4 * (numTokens + 1);
+        byte[] tmp = new byte[64];
+        for (int t = 0; t < numTokens; t++) {
+            int from = buf.getInt(vocabOff + 4 * t);
+            int len = buf.getInt(vocabOff + 4 * (t + 1)) - from;
+            if (tmp.length < len) tmp = new byte[len];
+            buf.get(bytesOff + from, tmp, 0, len);
+            vocabulary.intern(new String(tmp, 0, len, StandardCharsets.UTF_8));
+        }
+
+        int tablesOff = (int) buf.getLong(OFF_TABLES);
+        double[] logPriors = new double[numClasses];
+        double[] unseen = new double[numClasses];
+        double[] logLikelihoods = new double[numTokens * numClasses];
+        buf.position(tablesOff);
+        buf.asDoubleBuffer().get(logPriors).get(unseen).get(logLikelihoods);
+
+        return new CompiledModel(vocabulary, labels, logPriors, unseen, logLikelihoods);
+    }
+
+    /**
+     * Copie le fichier dans un buffer direct (hors du tas) après vérification de l'en-tête, de la
+     * version et des CRC : le modèle reste valide si le fichier est ensuite modifié ou supprimé.
+     * IOException si la mémoire directe disponible ne suffit pas.
+     */
+    static ByteBuffer readDirect(Path path) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) throw new IOException("fichier modèle tronqué : " + path);
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("fichier modèle trop gros : " + path);
+            buf = allocateDirect(ch.size(), path);
+            while (buf.hasRemaining()) {
+                if (ch.read(buf) < 0) throw new IOException("fichier modèle tronqué : " + path);
+            }
+        }
+        buf.clear();
+        verify(buf, path);
+        return buf;
+    }
+
+    /**
+     * Projette le fichier en mémoire après vérification de l'en-tête, de la version et des CRC.
+     */
+    static MappedByteBuffer map(Path path) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) throw new IOException("fichier modèle tronqué : " + path);
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("fichier modèle trop gros : " + path);
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        verify(buf, path);
+        return buf;
+    }
+
+    private static void verify(ByteBuffer buf, Path path) throws IOException {
+        if (buf.getInt(0) != MAGIC) throw new IOException("pas un fichier modèle NBMF : " + path);
+        int version = buf.getInt(4);
+        if (version != VERSION) throw new IOException("version de modèle non supportée (" + version + ") : " + path);
+
+        int headerCrc = buf.getInt(OFF_HEADER_CRC);
+        CRC32 crc = new CRC32();
+        ByteBuffer header = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        header.position(0).limit(OFF_HEADER_CRC);
+        crc.update(header);
+        crc.update(new byte[4]);
+        header.limit(HEADER_SIZE).position(OFF_HEADER_CRC + 4);
+        crc.update(header);
+        if ((int) crc.getValue() != headerCrc) throw new IOException("en-tête du modèle corrompu : " + path);
+
+        long[] bounds = {buf.getLong(OFF_LABELS), buf.getLong(OFF_VOCAB), buf.getLong(OFF_INDEX),
+                         buf.getLong(OFF_TABLES), buf.getLong(OFF_FILE_LENGTH)};
+        if (bounds[4] != buf.capacity()) throw new IOException("taille du modèle incohérente : " + path);
+        // Bornes croissantes de HEADER_SIZE à la taille du buffer (donc <= Integer.MAX_VALUE)
+        if (bounds[0] < HEADER_SIZE) throw new IOException("sections du modèle incohérentes : " + path);
+        for (int s = 0; s < 4; s++) {
+            if (bounds[s] > bounds[s + 1]) throw new IOException("sections du modèle incohérentes : " + path);
+        }
+        for (int s = 0; s < 4; s++) {
+            if (crc(buf, bounds[s], bounds[s + 1]) != buf.getInt(OFF_SECTION_CRCS + 4 * s)) {
+                throw new IOException("section " + s + " du modèle corrompue : " + path);
+            }
+        }
+        verifyLayout(buf, bounds, path);
+    }
+
+    // Cohérence des comptes de l'en-tête avec les sections (CRC valides mais en-tête forgé) :
+    // après ce contrôle, read, readLabels et MappedModel ne lisent jamais hors des sections
+    private static void verifyLayout(ByteBuffer buf, long[] bounds, Path path) throws IOException {
+        int numClasses = buf.getInt(OFF_NUM_CLASSES);
+        int numTokens = buf.getInt(OFF_NUM_TOKENS);
+        int hashSlots = buf.getInt(OFF_HASH_SLOTS);
+        if (numClasses <= 0 || numTokens < 0) throw new IOException("comptes du modèle invalides : " + path);
+        if (hashSlots <= numTokens || Integer.bitCount(hashSlots) != 1) {
+            throw new IOException("index du modèle invalide : " + path);
+        }
+
+        // Labels : numClasses entrées (longueur + octets) dans la section
+        long p = bounds[0];
+        for (int c = 0; c < numClasses; c++) {
+            if (bounds[1] - p < 4) throw new IOException("section labels incohérente : " + path);
+            int len = buf.getInt((int) p);
+            if (len < 0 || bounds[1] - p - 4 < len) throw new IOException("section labels incohérente : " + path);
+            p += 4 + len;
+        }
+
+        // Vocabulaire : débuts croissants, octets dans la section
+        long startsEnd = bounds[1] + 4L * (numTokens + 1);
+        if (bounds[1] % 4 != 0 || startsEnd > bounds[2]) throw new IOException("section vocabulaire incohérente : " + path);
+        int previous = 0;
+        for (int t = 0; t <= numTokens; t++) {
+            int start = buf.getInt((int) (bounds[1] + 4L * t));
+            if (t == 0 ? start != 0 : start < previous) {
+                throw new IOException("section vocabulaire incohérente : " + path);
+            }
+            previous = start;
+        }
+        if (startsEnd + previous > bounds[2]) throw new IOException("section vocabulaire incohérente : " + path);
+
+        // Index : hashSlots cases, ids dans [0, numTokens] (au moins une case vide : sondage borné)
+        if (bounds[2] % 4 != 0 || 4L * hashSlots > bounds[3] - bounds[2]) {
+            throw new IOException("section index incohérente : " + path);
+        }
+        for (int slot = 0; slot < hashSlots; slot++) {
+            int entry = buf.getInt((int) (bounds[2] + 4L * slot));
+            if (entry < 0 || entry > numTokens) throw new IOException("section index incohérente : " + path);
+        }
+
+        // Tables : priors + inconnus + numTokens * numClasses log-vraisemblances
+        long tablesLength = 8L * (2L * numClasses + (long) numTokens * numClasses);
+        if (bounds[3] % 8 != 0 || bounds[4] - bounds[3] != tablesLength) {
+            throw new IOException("section tables incohérente : " + path);
+        }
+    }
+
+    static String[] readLabels(ByteBuffer buf) {
+        int numClasses = buf.getInt(OFF_NUM_CLASSES);
+        String[] labels = new String[numClasses];
+        int p = (int) buf.getLong(OFF_LABELS);
+        for (int c = 0; c < numClasses; c++) {
+            int len = buf.getInt(p);
+            byte[] b = new byte[len];
+            buf.get(p + 4, b, 0, len);
+            labels[c] = new String(b, StandardCharsets.UTF_8);
+            p += 4 + len;
+        }
+        return labels;
+    }
+
+    private static int crc(ByteBuffer buf, long from, long to) {
+        CRC32 crc = new CRC32();
+        ByteBuffer section = buf.duplicate();
+        section.position((int) from).limit((int) to);
+        crc.update(section);
+        return (int) crc.getValue();
+    }
+
+    // Longueur de s en UTF-8 (sans conversion si s est en ASCII)
+    private static int utf8Length(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (s.charAt(i) >= 0x80) return s.getBytes(StandardCharsets.UTF_8).length;
+        }
+        return s.length();
+    }
+
+    private static long align(long offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Classe NGramFeatures
+ * Caractéristiques n-grammes ajoutées aux mots (unigrammes), chacune packée dans une clé long :
+ * - bigrammes de mots : (id du mot précédent << 32) | id du mot, ids du dictionnaire des mots
+ *   (mots consécutifs après tokenisation, donc après retrait des stopwords) ;
+ * - n-grammes de caractères (2 <= n <= 4) de chaque mot encadré par un marqueur de début et de fin,
+ *   16 bits par caractère : "free" en 3-grammes donne ^fr, fre, ree, ee$ (un mot plus court que
+ *   n - 2 caractères donne une seule clé, le mot encadré entier).
+ * Immuable.
+ */
+public final class NGramFeatures {
+
+    public static final NGramFeatures UNIGRAMS = new NGramFeatures(false, 0);
+
+    // Marqueur de début / fin de mot (le Tokenizer ne produit que des caractères alphanumériques)
+    private static final char BOUNDARY = '\0';
+
+    public final boolean wordBigrams;
+    public final int charN;              // 0 : pas de n-grammes de caractères
+
+    public NGramFeatures(boolean wordBigrams, int charN) {
+        if (charN != 0 && (charN < 2 || charN > 4)) throw new IllegalArgumentException("charN must be 0 or 2..4: " + charN);
+        this.wordBigrams = wordBigrams;
+        this.charN = charN;
+    }
+
+    /**
+     * "unigrams", "bigrams", "char3", "bigrams+char3" ...
+     */
+    public static NGramFeatures parse(String spec) {
+        boolean bigrams = false;
+        int charN = 0;
+        for (String part : spec.trim().toLowerCase().split("\\+")) {
+            if (part.equals("bigrams")) bigrams = true;
+            else if (part.startsWith("char")) charN = Integer.parseInt(part.substring(4));
+            else if (!part.equals("unigrams")) throw new IllegalArgumentException("feature inconnue : " + part);
+        }
+        return new NGramFeatures(bigrams, charN);
+    }
+
+    public boolean hasNGrams() {
+        return wordBigrams || charN > 0;
+    }
+
+    static long wordBigram(int previous, int id) {
+        return ((long) previous << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    // Nb max de clés de caractères d'un mot de length caractères
+    static int maxCharGrams(int length) {
+        return length + 2;
+    }
+
+    /**
+     * Écrit dans out (taille >= maxCharGrams(token.length())) les clés des n-grammes de caractères de token ;
+     * retourne leur nombre.
+     */
+    int charGrams(CharSequence token, long[] out) {
+        int padded = token.length() + 2;
+        int n = Math.min(charN, padded);
+        int count = 0;
+        for (int start = 0; start + n <= padded; start++) {
+            long key = 0;
+            for (int j = start; j < start + n; j++) {
+                char ch = j == 0 || j == padded - 1 ? BOUNDARY : token.charAt(j - 1);
+                key = (key << 16) | ch;
+            }
+            out[count++] = key;
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        if (!hasNGrams()) return "unigrams";
+        String chars = charN > 0 ? "char" + charN : "";
+        return wordBigrams ? (chars.isEmpty() ? "bigrams" : "bigrams+" + chars) : chars;
+    }
+}
@@ -0,0 +1,190 @@
+import java.util.List;
+
+/**
+ * Classe NGramModel
+ * Modèle compilé avec n-grammes : le score d'une classe est celui du modèle sur les mots
+ * (CompiledModel, inchangé) plus les log P(n-gramme|c) des bigrammes de mots et des n-grammes de
+ * caractères du message (voir NGramFeatures), chaque famille étant une distribution multinomiale
+ * lissée à part (même lissage que les mots, sur les n-grammes conservés de la famille).
+ *
+ * Élagage : seuls les n-grammes vus au moins minCount fois à l'entraînement sont gardés ; un
+ * n-gramme absent de la table n'ajoute rien au score (comme un mot retiré par FeatureSelector).
+ * Tables : LongIndex (clé packée -> ligne) et double[ligne * nbClasses + c]. Les n-grammes de
+ * caractères d'un mot connu sont sommés à la compilation (une ligne par mot, comme la table des
+ * mots) : seuls les mots inconnus du modèle sont découpés à la prédiction.
+ *
+ * Immuable : une instance peut être utilisée par plusieurs threads.
+ */
+public final class NGramModel extends NaiveBayesScorer {
+
+    private final CompiledModel unigrams;
+    private final Vocabulary vocabulary;
+    private final int numTokens;                  // ids >= numTokens : mot inconnu (pas de bigramme)
+    private final NGramFeatures features;
+    private final String[] labels;
+    private final double[] logPriors;
+    private final LongIndex wordIndex;            // null : pas de bigrammes
+    private final double[] wordLogLikelihoods;    // [ligne * nbClasses + c]
+    private final LongIndex charIndex;            // null : pas de n-grammes de caractères
+    private final double[] charLogLikelihoods;
+    private final double[] knownCharScores;       // somme des n-grammes de caractères du mot [idMot * nbClasses + c]
+    private final int seenNGrams;                 // n-grammes vus à l'entraînement, avant élagage
+
+    public NGramModel(NGramPartialResult pr, int minCount) {
+        this(pr, 1.0, minCount);
+    }
+
+    /**
+     * @param alpha constante de lissage (1 = Laplace)
+     * @param minCount nb minimal d'occurrences d'un n-gramme (toutes classes) pour être conservé
+     */
+    public NGramModel(NGramPartialResult pr, double alpha, int minCount) {
+        this.unigrams = new NaiveBayesModel(pr.unigrams, alpha).compile();
+        this.vocabulary = unigrams.vocabulary();
+        this.numTokens = unigrams.numTokens();
+        this.features = pr.features;
+
+        int numClasses = unigrams.numClasses();
+        this.labels = new String[numClasses];
+        this.logPriors = new double[numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            labels[c] = unigrams.label(c);
+            logPriors[c] = unigrams.logPrior(c);
+        }
+
+        NGramPartialResult.Counts words = features.wordBigrams ? pr.wordBigrams.prune(minCount, numClasses) : null;
+        NGramPartialResult.Counts allChars = pr.charGramCounts();
+        NGramPartialResult.Counts chars = features.charN > 0 ? allChars.prune(minCount, numClasses) : null;
+        this.seenNGrams = pr.numWordBigrams() + allChars.size();
+        this.wordIndex = words == null ? null : words.grams;
+        this.wordLogLikelihoods = words == null ? null : table(words, numClasses, alpha);
+        this.charIndex = chars == null ? null : chars.grams;
+        this.charLogLikelihoods = chars == null ? null : table(chars, numClasses, alpha);
+        this.knownCharScores = chars == null ? null : knownCharScores();
+    }
+
+    // Contribution des n-grammes de caractères de chaque mot du modèle
+    private double[] knownCharScores() {
+        int numClasses = labels.length;
+        double[] scores = new double[numTokens * numClasses];
+        long[] grams = new long[16];
+        for (int t = 0; t < numTokens; t++) {
+            String token = vocabulary.token(t);
+            if (grams.length < NGramFeatures.maxCharGrams(token.length())) {
+                grams = new long[NGramFeatures.maxCharGrams(token.length())];
+            }
+            int n = features.charGrams(token, grams);
+            for (int k = 0; k < n; k++) {
+                int g = charIndex.idOf(grams[k]);
+                if (g < 0) continue;
+                for (int c = 0; c < numClasses; c++) {
+                    scores[t * numClasses + c] += charLogLikelihoods[g * numClasses + c];
+                }
+            }
+        }
+        return scores;
+    }
+
+    // log((n + alpha) / (total_c + alpha * nb n-grammes conservés)), rangé [ligne * nbClasses + c]
+    private static double[] table(NGramPartialResult.Counts counts, int numClasses, double alpha) {
+        int size = counts.size();
+        double[] table = new double[size * numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            double denominator = counts.totals[c] + alpha * size;
+            int[] row = counts.counts[c];
+            for (int g = 0; g < size; g++) {
+                table[g * numClasses + c] = Math.log((row[g] + alpha) / denominator);
+            }
+        }
+        return table;
+    }
+
+    @Override
+    int idOf(String token) {
+        return vocabulary.idOf(token);
+    }
+
+    // Mots : table de CompiledModel (mot inconnu : ligne des mots inconnus)
+    @Override
+    void addLogLikelihoods(int tokenId, double[] scores) {
+        unigrams.addLogLikelihoods(tokenId, scores);
+    }
+
+    @Override
+    double logPrior(int c) {
+        return logPriors[c];
+    }
+
+    @Override
+    String label(int c) {
+        return labels[c];
+    }
+
+    // Chaque mot, puis son bigramme avec le mot précédent et ses n-grammes de caractères
+    @Override
+    void addTokens(List<String> tokens, double[] scores) {
+        long[] grams = null;
+        int previous = -1;
+
+        for (String token : tokens) {
+            int id = vocabulary.idOf(token);
+            boolean known = id >= 0 && id < numTokens;
+            addLogLikelihoods(id, scores);
+
+            if (wordIndex != null && previous >= 0 && known) {
+                add(scores, wordIndex.idOf(NGramFeatures.wordBigram(previous, id)), wordLogLikelihoods);
+            }
+            previous = known ? id : -1;
+
+            if (charIndex == null) continue;
+            if (known) {
+                add(scores, id, knownCharScores);
+            } else {
+                if (grams == null || grams.length < NGramFeatures.maxCharGrams(token.length())) {
+                    grams = new long[Math.max(32, NGramFeatures.maxCharGrams(token.length()))];
+                }
+                int n = features.charGrams(token, grams);
+                for (int k = 0; k < n; k++) {
+                    add(scores, charIndex.idOf(grams[k]), charLogLikelihoods);
+                }
+            }
+        }
+    }
+
+    // Ajoute la ligne g de table aux scores (g < 0 : n-gramme élagué ou jamais vu, ignoré)
+    private void add(double[] scores, int g, double[] table) {
+        if (g < 0) return;
+        int row = g * labels.length;
+        for (int c = 0; c < labels.length; c++) {
+            scores[c] += table[row + c];
+        }
+    }
+
+    @Override
+    public int numClasses() {
+        return labels.length;
+    }
+
+    public int numWordBigrams() {
+        return wordIndex == null ? 0 : wordIndex.size();
+    }
+
+    public int numCharGrams() {
+        return charIndex == null ? 0 : charIndex.size();
+    }
+
+    // N-grammes vus à l'entraînement (toutes familles), avant élagage
+    public int numSeenNGrams() {
+        return seenNGrams;
+    }
+
+    // Mémoire des tables de n-grammes (index + scores), en octets ; hors modèle des mots
+    public long footprintBytes() {
+        long bytes = 0;
+        if (wordIndex != null) bytes += wordIndex.footprintBytes() + 8L * wordLogLikelihoods.length;
+        if (charIndex != null) {
+            bytes += charIndex.footprintBytes() + 8L * (charLogLikelihoods.length + knownCharScores.length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Classe NGramPartialResult
+ * Comptages d'un entraînement avec n-grammes : les mots (PartialResult habituel) plus une table
+ * par famille de n-grammes (bigrammes de mots, n-grammes de caractères, voir NGramFeatures).
+ *
+ * Chaque famille est un Counts : clés long -> id dense dans un LongIndex (adressage ouvert, pas
+ * d'objet par n-gramme), comptages int[classe][id]. Les n-grammes rares sont retirés par prune()
+ * avant la compilation du modèle (NGramModel).
+ *
+ * Seuls les bigrammes sont comptés occurrence par occurrence : les n-grammes de caractères d'un mot
+ * ne dépendent que du mot, leurs comptages se déduisent de ceux des mots (charGramCounts), une fois
+ * par mot distinct au lieu d'une fois par occurrence.
+ *
+ * Les clés de bigrammes portent les ids du dictionnaire des mots : fusion uniquement entre résultats
+ * qui partagent leurs dictionnaires. Non thread-safe (un résultat par thread, fusion ensuite).
+ */
+public class NGramPartialResult {
+
+    public final PartialResult unigrams;
+    public final NGramFeatures features;
+    final Counts wordBigrams = new Counts(new LongIndex());
+
+    public NGramPartialResult(Vocabulary vocabulary, Vocabulary labels, NGramFeatures features) {
+        this.unigrams = new PartialResult(vocabulary, labels);
+        this.features = features;
+    }
+
+    /**
+     * Ajoute les comptages (mots et n-grammes) des documents de chunk.
+     */
+    public void accumulate(Corpus chunk) {
+        DataChunkTrainer.accumulate(unigrams, chunk);
+        if (!features.wordBigrams) return;
+
+        boolean sameIds = chunk.vocabulary() == unigrams.vocabulary;
+        boolean sameLabels = chunk.labels() == unigrams.labels;
+        int[] tokens = chunk.tokenArray();
+        for (int i = 0; i < chunk.size(); i++) {
+            int label = sameLabels ? chunk.label(i) : unigrams.labels.intern(chunk.labelName(i));
+            int previous = -1;
+            int end = chunk.start(i + 1);
+            for (int k = chunk.start(i); k < end; k++) {
+                int id = sameIds ? tokens[k] : unigrams.vocabulary.intern(chunk.vocabulary().token(tokens[k]));
+                if (previous >= 0) wordBigrams.add(label, NGramFeatures.wordBigram(previous, id), 1);
+                previous = id;
+            }
+        }
+    }
+
+    /**
+     * Fusionne pr dans ce résultat (mêmes dictionnaires et mêmes features obligatoires).
+     */
+    public void mergeIn(NGramPartialResult pr) {
+        if (pr.unigrams.vocabulary != unigrams.vocabulary || pr.unigrams.labels != unigrams.labels) {
+            throw new IllegalArgumentException("n-gram merge needs shared vocabulary and labels");
+        }
+        if (pr.features.wordBigrams != features.wordBigrams || pr.features.charN != features.charN) {
+            throw new IllegalArgumentException("features differ: " + pr.features + " vs " + features);
+        }
+        unigrams.mergeIn(pr.unigrams);
+        wordBigrams.mergeIn(pr.wordBigrams);
+    }
+
+    /**
+     * Entraînement parallèle : data coupé en parallelism morceaux, un résultat par morceau
+     * (dictionnaires de data partagés), fusionnés dans l'ordre.
+     */
+    public static NGramPartialResult train(Corpus data, NGramFeatures features, int parallelism)
+            throws InterruptedException, ExecutionException {
+        // Pool partagé (SharedPools) : pas de création de threads à chaque appel
+        ForkJoinPool pool = SharedPools.get(parallelism);
+        List<Future<NGramPartialResult>> futures = new ArrayList<>();
+        for (Corpus chunk : data.chunks(parallelism)) {
+            futures.add(pool.submit(() -> {
+                NGramPartialResult pr = new NGramPartialResult(data.vocabulary(), data.labels(), features);
+                pr.accumulate(chunk);
+                return pr;
+            }));
+        }
+        // Le premier résultat sert d'accumulateur : pas de copie de ses tables
+        NGramPartialResult global = null;
+        for (Future<NGramPartialResult> f : futures) {
+            if (global == null) global = f.get();
+            else global.mergeIn(f.get());
+        }
+        return global != null ? global : new NGramPartialResult(data.vocabulary(), data.labels(), features);
+    }
+
+    public int numWordBigrams() {
+        return wordBigrams.size();
+    }
+
+    /**
+     * Comptages des n-grammes de caractères, déduits des comptages des mots : chaque occurrence d'un
+     * mot compte une occurrence de chacun de ses n-grammes (vide si features.charN == 0).
+     */
+    Counts charGramCounts() {
+        Counts out = new Counts(new LongIndex());
+        if (features.charN == 0) return out;
+        int numTokens = unigrams.vocabulary.size();
+        long[] keys = new long[16];
+        for (int t = 0; t < numTokens; t++) {
+            String token = unigrams.vocabulary.token(t);
+            if (keys.length < NGramFeatures.maxCharGrams(token.length())) {
+                keys = new long[NGramFeatures.maxCharGrams(token.length())];
+            }
+            int n = -1;
+            for (int c = 0; c < unigrams.numClasses(); c++) {
+                int count = unigrams.count(c, t);
+                if (count == 0) continue;
+                if (n < 0) n = features.charGrams(token, keys);
+                for (int k = 0; k < n; k++) out.add(c, keys[k], count);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Comptages d'une famille de n-grammes : clé long -> id (LongIndex), counts[classe][id].
+     */
+    static final class Counts {
+        final LongIndex grams;
+        int[][] counts = new int[0][];
+        long[] totals = new long[0];                // nb d'occurrences par classe
+
+        Counts(LongIndex grams) {
+            this.grams = grams;
+        }
+
+        void add(int label, long key, int n) {
+            int id = grams.intern(key);
+            if (label >= counts.length) {
+                int old = counts.length;
+                counts = Arrays.copyOf(counts, label + 1);
+                totals = Arrays.copyOf(totals, label + 1);
+                for (int c = old; c <= label; c++) counts[c] = new int[0];
+            }
+            int[] row = counts[label];
+            if (id >= row.length) {
+                row = Arrays.copyOf(row, Math.max(id + 1, Math.max(16, row.length * 2)));
+                counts[label] = row;
+            }
+            row[id] += n;
+            totals[label] += n;
+        }
+
+        int count(int label, int id) {
+            if (label >= counts.length) return 0;
+            int[] row = counts[label];
+            return id < row.length ? row[id] : 0;
+        }
+
+        // Fusion par clé (les ids des deux index sont indépendants)
+        void mergeIn(Counts other) {
+            for (int c = 0; c < other.counts.length; c++) {
+                int[] src = other.counts[c];
+                for (int id = 0; id < src.length; id++) {
+                    if (src[id] != 0) add(c, other.grams.key(id), src[id]);
+                }
+            }
+        }
+
+        /**
+         * Copie limitée aux n-grammes vus au moins minCount fois (toutes classes) ; les totaux par
+         * classe ne comptent que les n-grammes conservés.
+         */
+        Counts prune(int minCount, int numClasses) {
+            int n = grams.size();
+            int[] total = new int[n];
+            int kept = 0;
+            for (int id = 0; id < n; id++) {
+                for (int c = 0; c < counts.length; c++) total[id] += count(c, id);
+                if (total[id] >= minCount) kept++;
+            }
+            Counts out = new Counts(new LongIndex(kept));
+            out.counts = new int[numClasses][kept];
+            out.totals = new long[numClasses];
+            for (int id = 0; id < n; id++) {
+                if (total[id] < minCount) continue;
+                int newId = out.grams.intern(grams.key(id));
+                for (int c = 0; c < Math.min(numClasses, counts.length); c++) {
+                    int count = count(c, id);
+                    out.counts[c][newId] = count;
+                    out.totals[c] += count;
+                }
+            }
+            return out;
+        }
+
+        int size() {
+            return grams.size();
+        }
+
+        // Mémoire : index + comptages
+        long footprintBytes() {
+            long bytes = grams.footprintBytes();
+            for (int[] row : counts) bytes += 4L * row.length;
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * NGramReport.java
+ *
+ * Apport des n-grammes (NGramModel) par rapport aux mots seuls, selon le seuil d'élagage :
+ * - n-grammes vus à l'entraînement et conservés (occurrences >= min_count), mémoire des tables ;
+ * - accuracy sur le jeu de test ;
+ * - débit : temps médian d'entraînement (comptage + compilation) et de prédiction du jeu de test,
+ *   après WARMUP exécutions non mesurées, et facteur par rapport au modèle à mots seuls (train_x, predict_x).
+ *
+ * Sortie CSV sur la console :
+ * features,min_count,ngrams_seen,ngrams_kept,table_bytes,accuracy,train_ms,predict_ms,train_x,predict_x
+ * (première ligne "unigrams" : référence).
+ */
+public class NGramReport {
+
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java NGramReport <train.tsv> <test.tsv> [min_count, ex. 1,2,3,5] "
+                    + "[features, ex. bigrams,char3,bigrams+char3] [threads]");
+            System.exit(1);
+        }
+        Path trainPath = Paths.get(args[0]);
+        Path testPath = Paths.get(args[1]);
+        int[] minCounts = args.length >= 3
+                ? Arrays.stream(args[2].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+                : new int[] {1, 2, 3, 5};
+        String[] featureList = args.length >= 4 ? args[3].split(",") : new String[] {"bigrams", "char3", "bigrams+char3"};
+        int threads = args.length >= 5 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus trainData = MappedTsvReader.load(trainPath, vocabulary, labels, threads);
+        Corpus testData = MappedTsvReader.load(testPath, vocabulary, labels, threads);
+        List<List<String>> messages = testData.messages();
+
+        System.out.println("features,min_count,ngrams_seen,ngrams_kept,table_bytes,accuracy,train_ms,predict_ms,train_x,predict_x");
+        double[] reference = run(NGramFeatures.UNIGRAMS, 1, trainData, testData, messages, threads, null);
+        for (String spec : featureList) {
+            NGramFeatures features = NGramFeatures.parse(spec);
+            for (int minCount : minCounts) {
+                run(features, minCount, trainData, testData, messages, threads, reference);
+            }
+        }
+    }
+
+    // Mesure une configuration, affiche sa ligne et retourne {train_ms, predict_ms}
+    private static double[] run(NGramFeatures features, int minCount, Corpus trainData, Corpus testData,
+                                List<List<String>> messages, int threads, double[] reference) throws Exception {
+        double[] trainMs = new double[RUNS];
+        double[] predictMs = new double[RUNS];
+        NGramPartialResult counts = null;
+        NGramModel model = null;
+        BatchPrediction predictions = null;
+        for (int r = -WARMUP; r < RUNS; r++) {
+            long t0 = System.nanoTime();
+            counts = NGramPartialResult.train(trainData, features, threads);
+            model = new NGramModel(counts, minCount);
+            long t1 = System.nanoTime();
+            predictions = model.predictBatch(messages, threads);
+            long t2 = System.nanoTime();
+            if (r < 0) continue;
+            trainMs[r] = (t1 - t0) / 1e6;
+            predictMs[r] = (t2 - t1) / 1e6;
+        }
+        double train = median(trainMs);
+        double predict = median(predictMs);
+
+        int correct = 0;
+        for (int i = 0; i < testData.size(); i++) {
+            if (testData.labelName(i).equals(predictions.label(i))) correct++;
+        }
+        System.out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%.4f,%.1f,%.1f,%.2f,%.2f%n",
+                features, minCount, model.numSeenNGrams(),
+                model.numWordBigrams() + model.numCharGrams(), model.footprintBytes(),
+                testData.isEmpty() ? 0 : (double) correct / testData.size(), train, predict,
+                reference == null ? 1.0 : train / reference[0], reference == null ? 1.0 : predict / reference[1]);
+        return new double[] {train, predict};
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
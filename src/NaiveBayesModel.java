@@ -1,59 +1,122 @@
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Classe NaiveBayesModel
  * Représente le modèle entraîné et permet la prédiction.
+ * Les comptages sont stockés dans des tableaux primitifs indexés par les ids du dictionnaire.
  */
-public class NaiveBayesModel implements Serializable {
+public class NaiveBayesModel implements Serializable, Classifier {
 
-    private static final long serialVersionUID = 1L; // nécessaire pour la sérialisation
+    private static final long serialVersionUID = 3L; // nécessaire pour la sérialisation (v2 : tableaux indexés, v3 : alpha)
 
-    private Map<String, Integer> docCounts;                // nb documents par classe
-    private Map<String, Map<String, Integer>> wordCounts;  // nb d’occurrences de chaque mot par classe
-    private Map<String, Integer> totalWords;               // nb total de mots par classe
-    private Set<String> vocabulary;                        // vocabulaire global
-    private int totalDocs;                                 // nb total de documents
+    private final Vocabulary vocabulary;                   // dictionnaire mot -> id
+    private final String[] labels;                         // classes, indexées par id
+    private final int[] docCounts;                         // nb documents par classe
+    private final int[][] wordCounts;                      // nb d’occurrences de chaque mot par classe [classe][idMot]
+    private final long[] totalWords;                       // nb total de mots par classe
+    private final int vocabularySize;                      // taille du vocabulaire global (mots observés)
+    private final int totalDocs;                           // nb total de documents
+    private final double alpha;                            // constante de lissage (1 = Laplace)
+
+    private transient volatile CompiledModel compiled;     // table de log-probabilités (construite à la demande)
 
     public NaiveBayesModel(PartialResult pr) {
-        this.docCounts = new HashMap<>(pr.docCounts);
-        this.wordCounts = new HashMap<>();
-        for (Map.Entry<String, Map<String, Integer>> entry : pr.wordCountsPerClass.entrySet()) {
-            this.wordCounts.put(entry.getKey(), new HashMap<>(entry.getValue()));
+        this(pr, 1.0);
+    }
+
+    /**
+     * @param alpha constante de lissage additif (1 = Laplace, < 1 = Lidstone)
+     */
+    public NaiveBayesModel(PartialResult pr, double alpha) {
+        if (!(alpha > 0)) throw new IllegalArgumentException("alpha must be > 0");
+        this.alpha = alpha;
+        int numClasses = pr.numClasses();
+        int numTokens = pr.vocabulary.size();
+
+        this.vocabulary = pr.vocabulary;
+        this.labels = new String[numClasses];
+        for (int c = 0; c < numClasses; c++) {
+            labels[c] = pr.labels.token(c);
+        }
+        this.docCounts = pr.docCounts.clone();
+        this.totalWords = pr.totalWordsPerClass.clone();
+
+        // Copie primitive, ajustée à la taille du dictionnaire
+        this.wordCounts = new int[numClasses][];
+        for (int c = 0; c < numClasses; c++) {
+            int[] row = pr.wordCountsPerClass[c];
+            wordCounts[c] = Arrays.copyOf(row, Math.min(row.length, numTokens));
         }
-        this.totalWords = new HashMap<>(pr.totalWordsPerClass);
-        this.vocabulary = new HashSet<>(pr.vocabulary);
+        this.vocabularySize = pr.vocabularySize();
 
-        this.totalDocs = 0;
-        for (int c : docCounts.values()) {
-            this.totalDocs += c;
+        int total = 0;
+        for (int c : docCounts) {
+            total += c;
         }
+        this.totalDocs = total;
+    }
+
+    /**
+     * Compile le modèle en table dense de log-probabilités (une seule fois).
+     * Le modèle est immuable après construction : la table reste valide.
+     */
+    public CompiledModel compile() {
+        CompiledModel cm = compiled;
+        if (cm == null) {
+            cm = new CompiledModel(vocabulary, labels, docCounts, wordCounts, totalWords, vocabularySize, alpha);
+            compiled = cm;
+        }
+        return cm;
     }
 
     /**
      * Prédit la classe d’une liste de tokens
      */
+    @Override
     public String predict(List<String> tokens) {
-        String bestClass = null;
-        double bestLogProb = Double.NEGATIVE_INFINITY;
-
-        for (String label : docCounts.keySet()) {
-            // Prior P(c)
-            double logProb = Math.log((double) docCounts.get(label) / totalDocs);
-
-            // Likelihood P(w|c)
-            for (String token : tokens) {
-                int count = wordCounts.getOrDefault(label, Collections.emptyMap())
-                                      .getOrDefault(token, 0);
-                double prob = (count + 1.0) / (totalWords.get(label) + vocabulary.size()); // lissage Laplace
-                logProb += Math.log(prob);
-            }
-
-            if (logProb > bestLogProb) {
-                bestLogProb = logProb;
-                bestClass = label;
-            }
-        }
-        return bestClass;
+        return compile().predict(tokens);
+    }
+
+    @Override
+    public void predictInto(List<String> tokens, BatchPrediction out, int index) {
+        compile().predictInto(tokens, out, index);
+    }
+
+    /**
+     * Prédit un lot de messages sur tous les cœurs (résultats dans l'ordre d'entrée)
+     */
+    public BatchPrediction predictBatch(List<List<String>> messages) {
+        return predictBatch(messages, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Prédit un lot de messages avec parallelism threads (résultats dans l'ordre d'entrée)
+     */
+    @Override
+    public BatchPrediction predictBatch(List<List<String>> messages, int parallelism) {
+        return compile().predictBatch(messages, parallelism);
+    }
+
+    @Override
+    public BatchPrediction predictBatch(List<List<String>> messages, ForkJoinPool pool) {
+        return compile().predictBatch(messages, pool);
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    public int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    public int getTotalDocs() {
+        return totalDocs;
+    }
+
+    public double getAlpha() {
+        return alpha;
     }
 }
@@ -1,208 +1,122 @@
 import java.util.*;
-import java.util.concurrent.Callable;
 import java.io.IOException;
-import java.io.FileWriter;
 import java.nio.file.*;
 import java.util.concurrent.*;
 
-/**
- * 1) DataPoint : structure simple
- */
-class DataPoint {
-    String label;        // "spam" ou "ham"
-    List<String> tokens; // tokens du message
-
-    DataPoint(String label, List<String> tokens) {
-        this.label = label;
-        this.tokens = tokens;
-    }
-}
-
-/**
- * 2) DataChunkTrainer : Callable qui prend un chunk (List<DataPoint>) et renvoie un PartialResult
- */
-class DataChunkTrainer implements Callable<PartialResult> {
-    private final List<DataPoint> chunk;
-
-    public DataChunkTrainer(List<DataPoint> chunk) {
-        this.chunk = chunk;
-    }
-
-    @Override
-    public PartialResult call() {
-        PartialResult pr = new PartialResult();
-
-        for (DataPoint dp : chunk) {
-            String label = dp.label;
-            pr.docCounts.put(label, pr.docCounts.getOrDefault(label, 0) + 1);
-            pr.wordCountsPerClass.putIfAbsent(label, new HashMap<>());
-
-            for (String token : dp.tokens) {
-                if (token == null || token.isEmpty()) continue;
-                pr.vocabulary.add(token);
-
-                Map<String, Integer> map = pr.wordCountsPerClass.get(label);
-                map.put(token, map.getOrDefault(token, 0) + 1);
-
-                pr.totalWordsPerClass.put(label, pr.totalWordsPerClass.getOrDefault(label, 0) + 1);
-            }
-        }
-        return pr;
-    }
-}
-
-/**
- * 3) Utils : découper la liste en chunks
- */
-class Utils {
-    public static <T> List<List<T>> chunkByCount(List<T> list, int numChunks) {
-        List<List<T>> chunks = new ArrayList<>();
-        int n = list.size();
-        if (numChunks <= 0) throw new IllegalArgumentException("numChunks must be > 0");
-        int baseSize = n / numChunks;
-        int remainder = n % numChunks;
-
-        int start = 0;
-        for (int i = 0; i < numChunks; i++) {
-            int add = (i < remainder) ? 1 : 0;
-            int end = start + baseSize + add;
-            if (start >= end) {
-                chunks.add(new ArrayList<>());
-            } else {
-                chunks.add(new ArrayList<>(list.subList(start, Math.min(end, n))));
-            }
-            start = end;
-        }
-        return chunks;
-    }
-}
-
 /**
  * Classe principale
  */
 public class NaiveBayesParallel {
 
+    /**
+     * args[0] : train.tsv (défaut train.tsv), args[1] : test.tsv (défaut test.tsv),
+     * args[2] : STEALING (WorkStealingTrainer, défaut) ou fusion des chunks SERIAL, AS_COMPLETED ou TREE
+     */
     public static void main(String[] args) throws Exception {
         // === 1. Lire le fichier train.tsv ===
-        String trainPath = "C:\\Users\\user\\eclipse-workspace\\TP java\\train.tsv";
-        List<DataPoint> trainData = loadData(trainPath);
+        String trainPath = args.length >= 1 ? args[0] : "train.tsv";
+        String testPath = args.length >= 2 ? args[1] : "test.tsv";
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus trainData = MappedTsvReader.load(Paths.get(trainPath), vocabulary, labels, numThreads);
         System.out.println("Taille train = " + trainData.size());
 
-        int numThreads = Runtime.getRuntime().availableProcessors();
+        // Ordonnancement : STEALING (découpage par volume de tokens, vol de tâches) ou
+        // chunks de même nb de documents agrégés en SERIAL, AS_COMPLETED ou TREE
+        String strategy = args.length >= 3 ? args[2].toUpperCase() : "STEALING";
+        PartialResultReducer.Mode mode = strategy.equals("STEALING") ? null : PartialResultReducer.Mode.valueOf(strategy);
 
         // === Séquentiel ===
         long startSequential = System.currentTimeMillis();
+        new NaiveBayesSequential().train(trainData);
         long endSequential = System.currentTimeMillis();
         System.out.println("⏱ Temps d'exécution (séquentiel) = " + (endSequential - startSequential) + " ms");
 
         // === Parallèle ===
         long startParallel = System.currentTimeMillis();
-        List<List<DataPoint>> chunks = Utils.chunkByCount(trainData, numThreads);
-        ExecutorService exec = Executors.newFixedThreadPool(numThreads);
-        List<Future<PartialResult>> futures = new ArrayList<>();
-        for (List<DataPoint> chunk : chunks) {
-            futures.add(exec.submit(new DataChunkTrainer(chunk)));
-        }
-
-        PartialResult global = new PartialResult();
-        for (Future<PartialResult> f : futures) {
-            PartialResult pr = f.get();
-            global.mergeIn(pr);
+        PartialResult global;
+        if (mode == null) {
+            global = WorkStealingTrainer.train(trainData, vocabulary, labels, numThreads);
+        } else {
+            global = PartialResultReducer.train(trainData.chunks(numThreads), vocabulary, labels, numThreads, mode);
         }
-        exec.shutdown();
         long endParallel = System.currentTimeMillis();
-        System.out.println("⏱ Temps d'exécution (parallèle) = " + (endParallel - startParallel) + " ms");
+        System.out.println("⏱ Temps d'exécution (parallèle, " + strategy + ") = " + (endParallel - startParallel) + " ms");
 
         // === Vérification du modèle global ===
-        System.out.println("Nombre total de documents par classe : " + global.docCounts);
-        System.out.println("Nombre total de mots par classe : " + global.totalWordsPerClass);
-        System.out.println("Taille vocabulaire global : " + global.vocabulary.size());
+        System.out.println("Nombre total de documents par classe : " + global.docCountsByLabel());
+        System.out.println("Nombre total de mots par classe : " + global.totalWordsByLabel());
+        System.out.println("Taille vocabulaire global : " + global.vocabularySize());
 
         // === Construire le modèle ===
         NaiveBayesModel model = new NaiveBayesModel(global);
 
+        // === Sauvegarde binaire (relue par InteractiveTest) ===
+        ModelFile.write(model.compile(), Paths.get("naivebayes_model.bin"));
+        System.out.println("💾 Modèle sauvegardé dans naivebayes_model.bin");
+
         // === Exemple de prédiction ===
         List<String> exemple = Arrays.asList("win", "money", "now");
         String prediction = model.predict(exemple);
         System.out.println("Prédiction pour " + exemple + " = " + prediction);
 
         // === Évaluation sur test.tsv ===
-        String testPath = "C:\\Users\\user\\eclipse-workspace\\TP java\\test.tsv";
-        List<DataPoint> testData = loadData(testPath);
-
-        int correct = 0;
-        Map<String, Map<String, Integer>> confusion = new HashMap<>();
-        confusion.put("spam", new HashMap<>());
-        confusion.put("ham", new HashMap<>());
-        confusion.get("spam").put("spam", 0);
-        confusion.get("spam").put("ham", 0);
-        confusion.get("ham").put("spam", 0);
-        confusion.get("ham").put("ham", 0);
-
-        for (DataPoint dp : testData) {
-            String pred = model.predict(dp.tokens);
-            if (pred.equals(dp.label)) correct++;
-            confusion.get(dp.label).put(pred, confusion.get(dp.label).get(pred) + 1);
-        }
-
-        double accuracy = 100.0 * correct / testData.size();
-
-        int TP_spam = confusion.get("spam").get("spam");
-        int FN_spam = confusion.get("spam").get("ham");
-        int FP_spam = confusion.get("ham").get("spam");
-        double precision_spam = (TP_spam + FP_spam) == 0 ? 0 : (double) TP_spam / (TP_spam + FP_spam);
-        double recall_spam = (TP_spam + FN_spam) == 0 ? 0 : (double) TP_spam / (TP_spam + FN_spam);
-        double f1_spam = (precision_spam + recall_spam) == 0 ? 0 : 2 * precision_spam * recall_spam / (precision_spam + recall_spam);
+        Corpus testData = MappedTsvReader.load(Paths.get(testPath), vocabulary, labels, numThreads);
 
-        int TP_ham = confusion.get("ham").get("ham");
-        int FN_ham = confusion.get("ham").get("spam");
-        int FP_ham = confusion.get("spam").get("ham");
-        double precision_ham = (TP_ham + FP_ham) == 0 ? 0 : (double) TP_ham / (TP_ham + FP_ham);
-        double recall_ham = (TP_ham + FN_ham) == 0 ? 0 : (double) TP_ham / (TP_ham + FN_ham);
-        double f1_ham = (precision_ham + recall_ham) == 0 ? 0 : 2 * precision_ham * recall_ham / (precision_ham + recall_ham);
+        // Test scoré une seule fois en parallèle ; scores bruts conservés pour le balayage des seuils
+        EvaluationEngine.Result eval = EvaluationEngine.evaluate(model.compile(), testData, "spam", numThreads);
+        double accuracy = 100.0 * eval.accuracy();
 
         System.out.println("\n=== Évaluation sur test set ===");
         System.out.println("Accuracy = " + String.format("%.2f", accuracy) + "%");
         System.out.println("\nConfusion Matrix :");
         System.out.println("\tPred Spam\tPred Ham");
-        System.out.println("Actual Spam\t" + confusion.get("spam").get("spam") + "\t\t" + confusion.get("spam").get("ham"));
-        System.out.println("Actual Ham\t" + confusion.get("ham").get("spam") + "\t\t" + confusion.get("ham").get("ham"));
+        System.out.println("Actual Spam\t" + eval.count("spam", "spam") + "\t\t" + eval.count("spam", "ham"));
+        System.out.println("Actual Ham\t" + eval.count("ham", "spam") + "\t\t" + eval.count("ham", "ham"));
 
         System.out.println("\n--- Metrics par classe ---");
-        System.out.println("Spam → Precision: " + String.format("%.2f", precision_spam) +
-                           " | Recall: " + String.format("%.2f", recall_spam) +
-                           " | F1: " + String.format("%.2f", f1_spam));
-        System.out.println("Ham  → Precision: " + String.format("%.2f", precision_ham) +
-                           " | Recall: " + String.format("%.2f", recall_ham) +
-                           " | F1: " + String.format("%.2f", f1_ham));
+        System.out.println("Spam → Precision: " + String.format("%.2f", eval.precision("spam")) +
+                           " | Recall: " + String.format("%.2f", eval.recall("spam")) +
+                           " | F1: " + String.format("%.2f", eval.f1("spam")));
+        System.out.println("Ham  → Precision: " + String.format("%.2f", eval.precision("ham")) +
+                           " | Recall: " + String.format("%.2f", eval.recall("ham")) +
+                           " | F1: " + String.format("%.2f", eval.f1("ham")));
+        if (eval.positiveLabel() != null) {
+            EvaluationEngine.Point best = eval.bestF1();
+            System.out.println("ROC AUC = " + String.format("%.4f", eval.rocAuc()) +
+                               " | Average precision = " + String.format("%.4f", eval.averagePrecision()) +
+                               " | Meilleur F1 spam = " + String.format("%.4f", best.f1()) +
+                               " (log-odds >= " + String.format("%.2f", best.threshold) + ")");
+        }
 
         // === Export CSV ===
-        try (FileWriter writer = new FileWriter("results.csv")) {
-            writer.write("Metric,Value\n");
-            writer.write("Accuracy," + accuracy + "\n");
-            writer.write("Precision_Spam," + precision_spam + "\n");
-            writer.write("Recall_Spam," + recall_spam + "\n");
-            writer.write("F1_Spam," + f1_spam + "\n");
-            writer.write("Precision_Ham," + precision_ham + "\n");
-            writer.write("Recall_Ham," + recall_ham + "\n");
-            writer.write("F1_Ham," + f1_ham + "\n");
+        try {
+            eval.writeMetricsCsv(Paths.get("results.csv"));
+            if (eval.positiveLabel() != null) eval.writeSweepCsv(Paths.get("results_thresholds.csv"));
         } catch (IOException e) {
             e.printStackTrace();
         }
-        System.out.println("📂 Résultats exportés dans results.csv");
+        System.out.println("📂 Résultats exportés dans results.csv (seuils : results_thresholds.csv)");
     }
 
-    private static List<DataPoint> loadData(String path) throws IOException {
-        List<DataPoint> data = new ArrayList<>();
-        List<String> lines = Files.readAllLines(Paths.get(path));
-        for (String line : lines) {
-            if (line.trim().isEmpty()) continue;
-            String[] parts = line.split("\\s+", 2);
-            if (parts.length < 2) continue;
-            String label = parts[0].trim();
-            String[] toks = parts[1].trim().split("\\s+");
-            data.add(new DataPoint(label, Arrays.asList(toks)));
-        }
-        return data;
+    // Une ligne "label<espaces>message" ajoutée à out (false si ligne vide ou mal formée)
+    static boolean parseLine(String line, Tokenizer tokenizer, Corpus.Builder out) {
+        int[] label = labelBounds(line);
+        if (label == null) return false;
+        out.add(line.substring(label[0], label[1]), tokenizer.tokenize(line, label[1], line.length()));
+        return true;
+    }
+
+    // Bornes {début, fin} du label d'une ligne "label<espaces>message" (le message commence à fin),
+    // null si ligne vide ou mal formée
+    static int[] labelBounds(String line) {
+        int n = line.length();
+        int start = 0;
+        while (start < n && Character.isWhitespace(line.charAt(start))) start++;
+        int end = start;
+        while (end < n && !Character.isWhitespace(line.charAt(end))) end++;
+        if (end == start || end == n) return null;
+        return new int[] {start, end};
     }
 }
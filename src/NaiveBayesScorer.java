@@ -0,0 +1,87 @@
+import java.util.List;
+
+/**
+ * Classe NaiveBayesScorer
+ * Calcul des scores commun aux modèles compilés (CompiledModel, MappedModel, HashedModel, NGramModel),
+ * repris par ScoringEngine et EvaluationEngine : score(c) = log P(c) + somme, token par token, de la
+ * ligne de log P(w|c) de son id (ou de celle des mots inconnus), dans cet ordre ; la classe prédite est
+ * le premier maximum strict. Un seul calcul : prédiction, scores et évaluation d'un même modèle concordent.
+ *
+ * Chaque modèle ne fournit que ses tables (priors, recherche d'un token, ligne d'un id).
+ */
+abstract class NaiveBayesScorer implements Classifier {
+
+    abstract int numClasses();
+
+    abstract String label(int c);
+
+    abstract double logPrior(int c);
+
+    /**
+     * Id (ligne de table) du token, négatif s'il est inconnu.
+     */
+    abstract int idOf(String token);
+
+    /**
+     * Ajoute à scores la ligne de log P(w|c) de tokenId (id inconnu : ligne des mots inconnus).
+     */
+    abstract void addLogLikelihoods(int tokenId, double[] scores);
+
+    // Contribution des tokens d'un message (redéfinie par NGramModel pour ses n-grammes)
+    void addTokens(List<String> tokens, double[] scores) {
+        for (String token : tokens) {
+            addLogLikelihoods(idOf(token), scores);
+        }
+    }
+
+    @Override
+    public final String predict(List<String> tokens) {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        int best = score(tokens, new double[numClasses()]);
+        if (Metrics.ENABLED) Metrics.PREDICT.record(System.nanoTime() - t0);
+        return best < 0 ? null : label(best);
+    }
+
+    @Override
+    public final void predictInto(List<String> tokens, BatchPrediction out, int index) {
+        long t0 = Metrics.ENABLED ? System.nanoTime() : 0;
+        double[] scores = new double[numClasses()];
+        int best = score(tokens, scores);
+        if (Metrics.ENABLED) Metrics.PREDICT.record(System.nanoTime() - t0);
+        if (best < 0) {
+            out.set(index, null, Double.NEGATIVE_INFINITY);
+        } else {
+            out.set(index, label(best), scores[best]);
+        }
+    }
+
+    /**
+     * Scores (log-probabilités jointes) du message dans scores (numClasses cases) ;
+     * retourne l'indice de la meilleure classe (-1 si aucune classe).
+     */
+    final int score(List<String> tokens, double[] scores) {
+        priors(scores);
+        addTokens(tokens, scores);
+        return argmax(scores);
+    }
+
+    // scores[c] = log P(c)
+    final void priors(double[] scores) {
+        for (int c = 0; c < scores.length; c++) {
+            scores[c] = logPrior(c);
+        }
+    }
+
+    // Premier maximum strict (-1 si aucune classe ou tous les scores à -infini)
+    static int argmax(double[] scores) {
+        int best = -1;
+        double bestLogProb = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < scores.length; c++) {
+            if (scores[c] > bestLogProb) {
+                bestLogProb = scores[c];
+                best = c;
+            }
+        }
+        return best;
+    }
+}
@@ -1,4 +1,3 @@
-import java.io.*;
 import java.nio.file.*;
 import java.util.*;
 
@@ -10,7 +9,7 @@ import java.util.*;
  * - Prédiction sur test.tsv
  * - Évaluation (précision, rappel, F1, matrice de confusion)
  */
-public class NaiveBayesSequential {
+public class NaiveBayesSequential implements Classifier {
 
     // Pour stocker le vocabulaire (ensemble de tous les mots vus)
     private Set<String> vocabulary = new HashSet<>();
@@ -30,38 +29,12 @@ public class NaiveBayesSequential {
     // Lissage de Laplace
     private static final double ALPHA = 1.0;
 
-    // -----------------------
-    // Étape 1 : Chargement train/test
-    // -----------------------
-    private List<DataPoint> loadData(String filePath) throws IOException {
-        List<DataPoint> dataset = new ArrayList<>();
-        List<String> lines = Files.readAllLines(Paths.get(filePath));
-        for (String line : lines) {
-            String[] parts = line.split("\\t", 2);
-            if (parts.length < 2) continue;
-            String label = parts[0];
-            String[] tokens = parts[1].split(" ");
-            dataset.add(new DataPoint(label, Arrays.asList(tokens)));
-        }
-        return dataset;
-    }
-
-    // Classe simple pour contenir un message
-    static class DataPoint {
-        String label;
-        List<String> tokens;
-        DataPoint(String label, List<String> tokens) {
-            this.label = label;
-            this.tokens = tokens;
-        }
-    }
-
     // -----------------------
     // Étape 2 : Entraînement
     // -----------------------
-    public void train(List<DataPoint> trainData) {
-        for (DataPoint dp : trainData) {
-            String label = dp.label;
+    public void train(Corpus trainData) {
+        for (int i = 0; i < trainData.size(); i++) {
+            String label = trainData.labelName(i);
             docCounts.put(label, docCounts.getOrDefault(label, 0) + 1);
             totalDocs++;
 
@@ -69,7 +42,7 @@ public class NaiveBayesSequential {
             wordCounts.putIfAbsent(label, new HashMap<>());
             totalWordsPerClass.putIfAbsent(label, 0);
 
-            for (String token : dp.tokens) {
+            for (String token : trainData.tokens(i)) {
                 vocabulary.add(token);
                 Map<String, Integer> labelWordCount = wordCounts.get(label);
                 labelWordCount.put(token, labelWordCount.getOrDefault(token, 0) + 1);
@@ -81,40 +54,54 @@ public class NaiveBayesSequential {
     // -----------------------
     // Étape 3 : Prédiction
     // -----------------------
+    @Override
     public String predict(List<String> tokens) {
+        BatchPrediction out = new BatchPrediction(1);
+        predictInto(tokens, out, 0);
+        return out.label(0);
+    }
+
+    // Écrit (classe, log-probabilité) à la position index de out
+    @Override
+    public void predictInto(List<String> tokens, BatchPrediction out, int index) {
         double bestScore = Double.NEGATIVE_INFINITY;
         String bestLabel = null;
-
         for (String label : docCounts.keySet()) {
-            // log(P(classe)) = log(nbrDocsClasse / totalDocs)
-            double logProb = Math.log(docCounts.get(label) / (double) totalDocs);
-
-            for (String token : tokens) {
-                int count = wordCounts.get(label).getOrDefault(token, 0);
-                double probTokenGivenClass =
-                        (count + ALPHA) /
-                        (totalWordsPerClass.get(label) + ALPHA * vocabulary.size());
-                logProb += Math.log(probTokenGivenClass);
-            }
-
+            double logProb = logProb(label, tokens);
             if (logProb > bestScore) {
                 bestScore = logProb;
                 bestLabel = label;
             }
         }
+        out.set(index, bestLabel, bestScore);
+    }
 
-        return bestLabel;
+    // log P(classe) + somme des log P(token|classe)
+    private double logProb(String label, List<String> tokens) {
+        // log(P(classe)) = log(nbrDocsClasse / totalDocs)
+        double logProb = Math.log(docCounts.get(label) / (double) totalDocs);
+
+        for (String token : tokens) {
+            int count = wordCounts.get(label).getOrDefault(token, 0);
+            double probTokenGivenClass =
+                    (count + ALPHA) /
+                    (totalWordsPerClass.get(label) + ALPHA * vocabulary.size());
+            logProb += Math.log(probTokenGivenClass);
+        }
+        return logProb;
     }
 
     // -----------------------
     // Étape 4 : Évaluation
     // -----------------------
-    public void evaluate(List<DataPoint> testData) {
+    public void evaluate(Corpus testData, int parallelism) {
         int tp = 0, tn = 0, fp = 0, fn = 0;
 
-        for (DataPoint dp : testData) {
-            String pred = predict(dp.tokens);
-            if (dp.label.equals("spam")) {
+        BatchPrediction predictions = predictBatch(testData.messages(), parallelism);
+
+        for (int i = 0; i < testData.size(); i++) {
+            String pred = predictions.label(i);
+            if (testData.labelName(i).equals("spam")) {
                 if (pred.equals("spam")) tp++;
                 else fn++;
             } else {
@@ -140,18 +127,19 @@ public class NaiveBayesSequential {
     // -----------------------
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
-            System.err.println("Usage: java NaiveBayesSequential <train.tsv> <test.tsv>");
+            System.err.println("Usage: java NaiveBayesSequential <train.tsv> <test.tsv> [threadsPrediction]");
             System.exit(1);
         }
 
         String trainPath = args[0];
         String testPath = args[1];
+        int parallelism = args.length >= 3 ? Integer.parseInt(args[2]) : 1; // prédiction séquentielle par défaut
 
         NaiveBayesSequential nb = new NaiveBayesSequential();
 
-        // Charger données
-        List<DataPoint> trainData = nb.loadData(trainPath);
-        List<DataPoint> testData = nb.loadData(testPath);
+        // Charger données (lecteur parallèle par projection mémoire)
+        Corpus trainData = MappedTsvReader.load(Paths.get(trainPath));
+        Corpus testData = MappedTsvReader.load(Paths.get(testPath));
 
         System.out.println("Taille train: " + trainData.size());
         System.out.println("Taille test: " + testData.size());
@@ -164,7 +152,7 @@ public class NaiveBayesSequential {
 
         // Évaluation
         long t2 = System.currentTimeMillis();
-        nb.evaluate(testData);
+        nb.evaluate(testData, parallelism);
         long t3 = System.currentTimeMillis();
         System.out.println("Temps test (ms): " + (t3 - t2));
     }
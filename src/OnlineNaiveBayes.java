@@ -0,0 +1,189 @@
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe OnlineNaiveBayes
+ * Modèle qui apprend en continu (ex. messages signalés "spam" par les utilisateurs) sans réentraînement.
+ *
+ * - update(label, tokens) ajoute un message aux comptages courants (verrou court, côté écrivains uniquement) ;
+ * - publish() prend une copie cohérente des comptages, la compile hors verrou et la publie
+ *   par une simple écriture volatile (copy-on-write) ;
+ * - predict() lit la dernière version publiée : jamais bloqué, jamais d'état partiellement modifié.
+ * startPublishing() publie périodiquement les mises à jour en attente.
+ */
+public class OnlineNaiveBayes implements Classifier, AutoCloseable {
+
+    private final PartialResult counts;                    // comptages courants (protégés par this)
+    private final AtomicLong pendingUpdates = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private final Object publishLock = new Object();      // une publication à la fois (ordre des versions)
+    private volatile CompiledModel snapshot;               // dernière version publiée (immuable)
+    private ScheduledExecutorService publisher;
+
+    public OnlineNaiveBayes() {
+        this(new PartialResult());
+    }
+
+    /**
+     * Démarre à partir d'un entraînement existant (base n'est pas modifié).
+     */
+    public OnlineNaiveBayes(PartialResult base) {
+        this.counts = new PartialResult(base.vocabulary, base.labels);
+        this.counts.mergeIn(base);
+        publish();
+    }
+
+    /**
+     * Ajoute un message étiqueté au modèle (visible après la prochaine publication).
+     */
+    public void update(String label, List<String> tokens) {
+        // Les dictionnaires sont thread-safe : conversion en ids hors verrou
+        int labelId = counts.labels.intern(label);
+        int[] ids = new int[tokens.size()];
+        int n = 0;
+        for (String token : tokens) {
+            if (token == null || token.isEmpty()) continue;
+            ids[n++] = counts.vocabulary.intern(token);
+        }
+
+        synchronized (this) {
+            counts.addDocument(labelId);
+            for (int i = 0; i < n; i++) {
+                counts.addToken(labelId, ids[i]);
+            }
+        }
+        pendingUpdates.incrementAndGet();
+    }
+
+    /**
+     * Compile les comptages courants et les rend visibles aux prédictions.
+     */
+    public void publish() {
+        synchronized (publishLock) {
+            long published = pendingUpdates.get();
+            NaiveBayesModel model;
+            synchronized (this) {
+                model = new NaiveBayesModel(counts);   // copie primitive des comptages
+            }
+            snapshot = model.compile();                // compilation hors verrou des écrivains
+            pendingUpdates.addAndGet(-published);
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Publie toutes les periodMillis ms s'il y a des mises à jour en attente (thread démon).
+     */
+    public synchronized void startPublishing(long periodMillis) {
+        if (publisher != null) throw new IllegalStateException("publication périodique déjà démarrée");
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "online-nb-publisher");
+            t.setDaemon(true);
+            return t;
+        });
+        publisher.scheduleWithFixedDelay(() -> {
+            if (pendingUpdates.get() > 0) publish();
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        ScheduledExecutorService p;
+        synchronized (this) {
+            p = publisher;
+            publisher = null;
+        }
+        if (p != null) p.shutdownNow();
+    }
+
+    @Override
+    public String predict(List<String> tokens) {
+        return snapshot.predict(tokens);
+    }
+
+    @Override
+    public void predictInto(List<String> tokens, BatchPrediction out, int index) {
+        snapshot.predictInto(tokens, out, index);
+    }
+
+    // Un lot entier est prédit avec la même version du modèle
+    @Override
+    public BatchPrediction predictBatch(List<List<String>> messages, int parallelism) {
+        return snapshot.predictBatch(messages, parallelism);
+    }
+
+    @Override
+    public BatchPrediction predictBatch(List<List<String>> messages, ForkJoinPool pool) {
+        return snapshot.predictBatch(messages, pool);
+    }
+
+    /**
+     * Version publiée courante.
+     */
+    public CompiledModel snapshot() {
+        return snapshot;
+    }
+
+    public long pendingUpdates() {
+        return pendingUpdates.get();
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Démo : entraîne sur train.tsv, puis rejoue test.tsv (100 fois) comme des signalements utilisateurs
+     * pendant que trois threads prédisent en continu.
+     * args[0] : train.tsv, args[1] : test.tsv, args[2] : période de publication en ms (défaut 1000)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java OnlineNaiveBayes <train.tsv> <test.tsv> [publishMillis]");
+            System.exit(1);
+        }
+        long period = args.length >= 3 ? Long.parseLong(args[2]) : 1000;
+        int rounds = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus train = MappedTsvReader.load(Paths.get(args[0]), vocabulary, labels, threads);
+        Corpus events = MappedTsvReader.load(Paths.get(args[1]), vocabulary, labels, threads);
+
+        try (OnlineNaiveBayes online = new OnlineNaiveBayes(new DataChunkTrainer(train, vocabulary, labels).call())) {
+            online.startPublishing(period);
+
+            AtomicLong predictions = new AtomicLong();
+            ExecutorService exec = Executors.newFixedThreadPool(4);
+            Future<?> writer = exec.submit(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int i = 0; i < events.size(); i++) online.update(events.labelName(i), events.tokens(i));
+                }
+            });
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(exec.submit(() -> {
+                    int i = 0;
+                    while (!writer.isDone()) {
+                        online.predict(events.tokens(i++ % events.size()));
+                        predictions.incrementAndGet();
+                    }
+                }));
+            }
+            long t0 = System.currentTimeMillis();
+            writer.get();
+            for (Future<?> f : readers) f.get();
+            exec.shutdown();
+            online.publish();
+            long t1 = System.currentTimeMillis();
+
+            System.out.println("Mises à jour : " + (long) rounds * events.size() + " en " + (t1 - t0) + " ms");
+            System.out.println("Prédictions concurrentes : " + predictions.get());
+            System.out.println("Versions publiées : " + online.version());
+        }
+    }
+}
@@ -1,43 +1,178 @@
 import java.util.*;
 
+/**
+ * Comptages (partiels) d'un entraînement Naive Bayes, indexés par ids entiers.
+ * - docCounts[classe]                 : nb de documents par classe
+ * - totalWordsPerClass[classe]        : nb total de mots par classe
+ * - wordCountsPerClass[classe][idMot] : nb d'occurrences de chaque mot par classe
+ * Les ids viennent des dictionnaires vocabulary (mots) et labels (classes).
+ */
 public class PartialResult {
-    public Map<String, Integer> docCounts = new HashMap<>();
-    public Map<String, Map<String, Integer>> wordCountsPerClass = new HashMap<>();
-    public Map<String, Integer> totalWordsPerClass = new HashMap<>();
-    public Set<String> vocabulary = new HashSet<>();
+    public final Vocabulary vocabulary;
+    public final Vocabulary labels;
+    public int[] docCounts = new int[0];
+    public long[] totalWordsPerClass = new long[0];
+    public int[][] wordCountsPerClass = new int[0][];
+
+    public PartialResult() {
+        this(new Vocabulary(), new Vocabulary());
+    }
+
+    // Résultat partiel qui partage les dictionnaires (ids compatibles => fusion par addition de tableaux)
+    public PartialResult(Vocabulary vocabulary, Vocabulary labels) {
+        this.vocabulary = vocabulary;
+        this.labels = labels;
+    }
+
+    // Compter un document de la classe label
+    public void addDocument(int label) {
+        ensureClass(label);
+        docCounts[label]++;
+    }
+
+    // Compter une occurrence du mot tokenId dans la classe label
+    public void addToken(int label, int tokenId) {
+        addToken(label, tokenId, 1);
+    }
+
+    public void addToken(int label, int tokenId, int count) {
+        ensureClass(label);
+        int[] row = wordCountsPerClass[label];
+        if (tokenId >= row.length) {
+            row = Arrays.copyOf(row, Math.max(tokenId + 1, Math.max(16, row.length * 2)));
+            wordCountsPerClass[label] = row;
+        }
+        row[tokenId] += count;
+        totalWordsPerClass[label] += count;
+    }
+
+    // Nb d'occurrences du mot tokenId dans la classe label
+    public int count(int label, int tokenId) {
+        if (label >= wordCountsPerClass.length) return 0;
+        int[] row = wordCountsPerClass[label];
+        return tokenId < row.length ? row[tokenId] : 0;
+    }
+
+    // Nb de classes connues de ce résultat
+    public int numClasses() {
+        return docCounts.length;
+    }
+
+    // Taille du vocabulaire effectivement observé (mots de compte > 0 dans au moins une classe)
+    public int vocabularySize() {
+        int max = 0;
+        for (int[] row : wordCountsPerClass) max = Math.max(max, row.length);
+        int seen = 0;
+        for (int t = 0; t < max; t++) {
+            for (int[] row : wordCountsPerClass) {
+                if (t < row.length && row[t] > 0) {
+                    seen++;
+                    break;
+                }
+            }
+        }
+        return seen;
+    }
+
+    // Vues lisibles (classe -> valeur), pour l'affichage
+    public Map<String, Integer> docCountsByLabel() {
+        Map<String, Integer> m = new LinkedHashMap<>();
+        for (int c = 0; c < docCounts.length; c++) m.put(labels.token(c), docCounts[c]);
+        return m;
+    }
+
+    public Map<String, Long> totalWordsByLabel() {
+        Map<String, Long> m = new LinkedHashMap<>();
+        for (int c = 0; c < totalWordsPerClass.length; c++) m.put(labels.token(c), totalWordsPerClass[c]);
+        return m;
+    }
 
     // Fusionner un autre résultat partiel dans celui-ci
     public void mergeIn(PartialResult pr) {
-        // 🔹 Fusion des documents par classe
-        for (Map.Entry<String, Integer> e : pr.docCounts.entrySet()) {
-            String label = e.getKey();
-            int count = e.getValue();
-            this.docCounts.put(label, this.docCounts.getOrDefault(label, 0) + count);
+        if (Metrics.ENABLED) {
+            long t0 = System.nanoTime();
+            merge(pr);
+            Metrics.MERGE.record(System.nanoTime() - t0);
+        } else {
+            merge(pr);
         }
+    }
 
-        // 🔹 Fusion des mots par classe
-        for (Map.Entry<String, Map<String, Integer>> e : pr.wordCountsPerClass.entrySet()) {
-            String label = e.getKey();
-            Map<String, Integer> wordMap = e.getValue();
+    private void merge(PartialResult pr) {
+        if (pr.vocabulary == this.vocabulary && pr.labels == this.labels) {
+            // 🔹 Mêmes dictionnaires : addition élément par élément
+            for (int c = 0; c < pr.docCounts.length; c++) {
+                ensureClass(c);
+                this.docCounts[c] += pr.docCounts[c];
+                this.totalWordsPerClass[c] += pr.totalWordsPerClass[c];
 
-            this.wordCountsPerClass.putIfAbsent(label, new HashMap<>());
-            Map<String, Integer> targetMap = this.wordCountsPerClass.get(label);
+                int[] src = pr.wordCountsPerClass[c];
+                int[] dst = this.wordCountsPerClass[c];
+                if (dst.length < src.length) {
+                    dst = Arrays.copyOf(dst, src.length);
+                    this.wordCountsPerClass[c] = dst;
+                }
+                for (int t = 0; t < src.length; t++) {
+                    dst[t] += src[t];
+                }
+            }
+            return;
+        }
 
-            for (Map.Entry<String, Integer> we : wordMap.entrySet()) {
-                String word = we.getKey();
-                int count = we.getValue();
-                targetMap.put(word, targetMap.getOrDefault(word, 0) + count);
+        // 🔹 Dictionnaires différents : ré-indexer les classes et les mots par leur texte
+        for (int c = 0; c < pr.docCounts.length; c++) {
+            int label = this.labels.intern(pr.labels.token(c));
+            ensureClass(label);
+            this.docCounts[label] += pr.docCounts[c];
+
+            int[] src = pr.wordCountsPerClass[c];
+            for (int t = 0; t < src.length; t++) {
+                if (src[t] != 0) {
+                    addToken(label, this.vocabulary.intern(pr.vocabulary.token(t)), src[t]);
+                }
             }
         }
+    }
 
-        // 🔹 Fusion des totaux de mots
-        for (Map.Entry<String, Integer> e : pr.totalWordsPerClass.entrySet()) {
-            String label = e.getKey();
-            int count = e.getValue();
-            this.totalWordsPerClass.put(label, this.totalWordsPerClass.getOrDefault(label, 0) + count);
+    /**
+     * Comptages de this privés de ceux de part (mêmes dictionnaires, part inclus dans this) :
+     * les comptages étant additifs, on obtient le résultat de l'entraînement sans les documents de part.
+     */
+    public PartialResult minus(PartialResult part) {
+        if (part.vocabulary != this.vocabulary || part.labels != this.labels) {
+            throw new IllegalArgumentException("minus needs shared vocabulary and labels");
         }
+        int numClasses = numClasses();
+        if (part.numClasses() > numClasses) throw new IllegalArgumentException("part is not included in this result");
+        PartialResult out = new PartialResult(vocabulary, labels);
+        out.docCounts = docCounts.clone();
+        out.totalWordsPerClass = totalWordsPerClass.clone();
+        out.wordCountsPerClass = new int[numClasses][];
+        for (int c = 0; c < numClasses; c++) {
+            int[] row = wordCountsPerClass[c].clone();
+            if (c < part.numClasses()) {
+                out.docCounts[c] -= part.docCounts[c];
+                out.totalWordsPerClass[c] -= part.totalWordsPerClass[c];
+                int[] sub = part.wordCountsPerClass[c];
+                if (sub.length > row.length) throw new IllegalArgumentException("part is not included in this result");
+                for (int t = 0; t < sub.length; t++) {
+                    row[t] -= sub[t];
+                }
+            }
+            out.wordCountsPerClass[c] = row;
+        }
+        return out;
+    }
 
-        // 🔹 Fusion du vocabulaire
-        this.vocabulary.addAll(pr.vocabulary);
+    private void ensureClass(int label) {
+        if (label < docCounts.length) return;
+        int n = label + 1;
+        int old = docCounts.length;
+        docCounts = Arrays.copyOf(docCounts, n);
+        totalWordsPerClass = Arrays.copyOf(totalWordsPerClass, n);
+        wordCountsPerClass = Arrays.copyOf(wordCountsPerClass, n);
+        for (int c = old; c < n; c++) {
+            wordCountsPerClass[c] = new int[0];
+        }
     }
 }
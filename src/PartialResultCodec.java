@@ -0,0 +1,230 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Classe PartialResultCodec
+ * Format binaire compact d'un PartialResult, pour l'échanger entre processus (DistributedTrainer).
+ * Les dictionnaires voyagent avec les comptages : le récepteur fusionne par le texte des mots.
+ *
+ * Entiers en varint (7 bits par octet, sauf magic et CRC), chaînes en longueur + octets UTF-8 :
+ *   magic "NBPR" (int)  version
+ *   nb classes, puis les classes
+ *   nb mots, puis les mots (seuls ceux de compte > 0, renumérotés 0..n-1)
+ *   pour chaque classe : nb documents, nb total de mots, nb de mots de compte > 0,
+ *                        puis les couples (écart d'id avec le précédent, compte)
+ *   CRC32 de tout ce qui précède (int)
+ */
+public final class PartialResultCodec {
+
+    static final int MAGIC = 0x4E425052;   // "NBPR" (DataOutput : big-endian)
+    static final int VERSION = 1;
+
+    private PartialResultCodec() {
+    }
+
+    /**
+     * Écrit pr dans out (out n'est pas fermé).
+     */
+    public static void write(PartialResult pr, OutputStream out) throws IOException {
+        int numClasses = pr.numClasses();
+        int numTokens = 0;
+        for (int c = 0; c < numClasses; c++) numTokens = Math.max(numTokens, pr.wordCountsPerClass[c].length);
+
+        // Seuls les mots observés sont transmis
+        int[] newIds = new int[numTokens];
+        int used = 0;
+        for (int t = 0; t < numTokens; t++) {
+            boolean seen = false;
+            for (int c = 0; c < numClasses && !seen; c++) seen = pr.count(c, t) > 0;
+            newIds[t] = seen ? used++ : -1;
+        }
+
+        // CRC calculé au-dessus du tampon : il couvre exactement les octets écrits
+        BufferedOutputStream buffered = new BufferedOutputStream(out, 1 << 16);
+        CheckedOutputStream checked = new CheckedOutputStream(buffered, new CRC32());
+        DataOutputStream data = new DataOutputStream(checked);
+        data.writeInt(MAGIC);
+        writeVarint(data, VERSION);
+
+        writeVarint(data, numClasses);
+        for (int c = 0; c < numClasses; c++) writeString(data, pr.labels.token(c));
+
+        writeVarint(data, used);
+        for (int t = 0; t < numTokens; t++) {
+            if (newIds[t] >= 0) writeString(data, pr.vocabulary.token(t));
+        }
+
+        for (int c = 0; c < numClasses; c++) {
+            int[] row = pr.wordCountsPerClass[c];
+            int nonZero = 0;
+            for (int count : row) if (count != 0) nonZero++;
+            writeVarint(data, pr.docCounts[c]);
+            writeVarint(data, pr.totalWordsPerClass[c]);
+            writeVarint(data, nonZero);
+            int previous = 0;
+            for (int t = 0; t < row.length; t++) {
+                if (row[t] == 0) continue;
+                writeVarint(data, newIds[t] - previous);
+                writeVarint(data, row[t]);
+                previous = newIds[t];
+            }
+        }
+        new DataOutputStream(buffered).writeInt((int) checked.getChecksum().getValue());
+        buffered.flush();
+    }
+
+    /**
+     * Lit un PartialResult (dictionnaires neufs) ; IOException si le flux est tronqué ou corrompu.
+     */
+    public static PartialResult read(InputStream in) throws IOException {
+        return read(in, Long.MAX_VALUE);
+    }
+
+    /**
+     * Lit un PartialResult d'au plus maxBytes octets (ex. longueur annoncée par l'émetteur) : IOException
+     * au-delà. Les tailles lues (nb de classes, de mots, longueur des chaînes...) sont bornées par maxBytes
+     * et les chaînes lues par morceaux : un flux corrompu ne provoque pas d'allocation démesurée
+     * (OutOfMemoryError) avant la vérification du CRC.
+     */
+    public static PartialResult read(InputStream in, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IOException("taille invalide : " + maxBytes);
+        // Tampon sous le CRC : seuls les octets consommés par le décodage sont vérifiés
+        // (le tampon peut lire au-delà de la fin du PartialResult : in est à lire en entier)
+        BufferedInputStream buffered = new BufferedInputStream(new LimitedInputStream(in, maxBytes), 1 << 16);
+        CheckedInputStream checked = new CheckedInputStream(buffered, new CRC32());
+        DataInputStream data = new DataInputStream(checked);
+        try {
+            if (data.readInt() != MAGIC) throw new IOException("pas un PartialResult (magic)");
+            int version = (int) readVarint(data);
+            if (version != VERSION) throw new IOException("version non supportée : " + version);
+
+            PartialResult pr = new PartialResult();
+            int numClasses = count(data, maxBytes);
+            for (int c = 0; c < numClasses; c++) pr.labels.intern(readString(data, maxBytes));
+            int numTokens = count(data, maxBytes);
+            for (int t = 0; t < numTokens; t++) pr.vocabulary.intern(readString(data, maxBytes));
+            if (pr.labels.size() != numClasses || pr.vocabulary.size() != numTokens) {
+                throw new IOException("dictionnaire invalide (doublons)");
+            }
+
+            pr.docCounts = new int[numClasses];
+            pr.totalWordsPerClass = new long[numClasses];
+            pr.wordCountsPerClass = new int[numClasses][];
+            for (int c = 0; c < numClasses; c++) {
+                pr.docCounts[c] = count(data, Integer.MAX_VALUE);
+                pr.totalWordsPerClass[c] = readVarint(data);
+                if (pr.totalWordsPerClass[c] < 0) throw new IOException("total négatif : " + pr.totalWordsPerClass[c]);
+                int nonZero = count(data, maxBytes / 2);   // au moins 2 octets par couple
+                int[] row = new int[numTokens];
+                long total = 0;
+                int id = 0;
+                for (int i = 0; i < nonZero; i++) {
+                    id += (int) readVarint(data);
+                    if (id < 0 || id >= numTokens) throw new IOException("id de mot hors limites : " + id);
+                    row[id] = count(data, Integer.MAX_VALUE);
+                    total += row[id];
+                }
+                if (total != pr.totalWordsPerClass[c]) {
+                    throw new IOException("total incohérent pour la classe " + pr.labels.token(c));
+                }
+                pr.wordCountsPerClass[c] = row;
+            }
+
+            int expected = (int) checked.getChecksum().getValue();
+            if (new DataInputStream(buffered).readInt() != expected) throw new IOException("CRC invalide");
+            return pr;
+        } catch (EOFException e) {
+            throw new IOException("PartialResult tronqué", e);
+        }
+    }
+
+    // Entier de [0, max] (et de taille de tableau possible)
+    private static int count(DataInput in, long max) throws IOException {
+        long n = readVarint(in);
+        if (n < 0 || n > Math.min(max, Integer.MAX_VALUE - 8)) throw new IOException("taille invalide : " + n);
+        return (int) n;
+    }
+
+    static void writeVarint(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarint(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("varint invalide");
+    }
+
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    // Lecture par morceaux (readNBytes) : une longueur corrompue s'arrête à la fin du flux
+    private static String readString(DataInputStream in, long maxBytes) throws IOException {
+        int n = count(in, maxBytes);
+        byte[] bytes = in.readNBytes(n);
+        if (bytes.length != n) throw new EOFException();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Flux limité à max octets : IOException au-delà
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long max) {
+            super(in);
+            this.remaining = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return tooLong();
+            int b = in.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (remaining <= 0) return tooLong();
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private static int tooLong() throws IOException {
+            throw new IOException("PartialResult plus long que la limite");
+        }
+    }
+}
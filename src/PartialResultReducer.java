@@ -0,0 +1,131 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Classe PartialResultReducer
+ * Stratégies d'entraînement parallèle + agrégation des PartialResult :
+ * - SERIAL       : f.get() dans l'ordre de soumission puis mergeIn dans un seul thread (comportement historique)
+ * - AS_COMPLETED : fusion dans le thread principal dès qu'un chunk se termine (pas d'attente du plus lent)
+ * - TREE         : ForkJoin, chaque moitié est entraînée puis fusionnée deux à deux (profondeur log2(chunks))
+ */
+public final class PartialResultReducer {
+
+    public enum Mode { SERIAL, AS_COMPLETED, TREE }
+
+    private PartialResultReducer() {
+    }
+
+    /**
+     * Entraîne chaque chunk avec un DataChunkTrainer et agrège les résultats selon mode.
+     * @param chunks données découpées (ex. Corpus.chunks)
+     * @param vocabulary dictionnaire des mots partagé
+     * @param labels dictionnaire des classes partagé
+     * @param numThreads nb de threads
+     * @param mode stratégie d'agrégation
+     */
+    public static PartialResult train(List<Corpus> chunks, Vocabulary vocabulary, Vocabulary labels,
+                                      int numThreads, Mode mode) throws InterruptedException, ExecutionException {
+        if (chunks.isEmpty()) return new PartialResult(vocabulary, labels);
+
+        // Pool partagé (SharedPools) : pas de création de threads à chaque appel
+        ForkJoinPool pool = SharedPools.get(numThreads);
+        if (mode == Mode.TREE) {
+            return pool.invoke(new TrainTask(chunks, vocabulary, labels, 0, chunks.size()));
+        }
+
+        PartialResult global = new PartialResult(vocabulary, labels);
+        if (mode == Mode.AS_COMPLETED) {
+            CompletionService<PartialResult> cs = new ExecutorCompletionService<>(pool);
+            for (Corpus chunk : chunks) {
+                cs.submit(new DataChunkTrainer(chunk, vocabulary, labels));
+            }
+            for (int i = 0; i < chunks.size(); i++) {
+                global.mergeIn(cs.take().get());
+            }
+        } else {
+            List<Future<PartialResult>> futures = new ArrayList<>();
+            for (Corpus chunk : chunks) {
+                futures.add(pool.submit(new DataChunkTrainer(chunk, vocabulary, labels)));
+            }
+            for (Future<PartialResult> f : futures) {
+                global.mergeIn(f.get());
+            }
+        }
+        return global;
+    }
+
+    /**
+     * Fusion séquentielle : tous les résultats dans le premier (les résultats passés sont modifiés).
+     */
+    public static PartialResult mergeSerial(List<PartialResult> parts) {
+        PartialResult global = parts.get(0);
+        for (int i = 1; i < parts.size(); i++) {
+            global.mergeIn(parts.get(i));
+        }
+        return global;
+    }
+
+    /**
+     * Fusion deux à deux en arbre sur pool (les résultats passés sont modifiés).
+     */
+    public static PartialResult mergeTree(List<PartialResult> parts, ForkJoinPool pool) {
+        return pool.invoke(new MergeTask(parts, 0, parts.size()));
+    }
+
+    // Entraîne [from, to) : un chunk => DataChunkTrainer, sinon deux moitiés en parallèle puis fusion
+    private static final class TrainTask extends RecursiveTask<PartialResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Corpus> chunks;
+        private final Vocabulary vocabulary;
+        private final Vocabulary labels;
+        private final int from;
+        private final int to;
+
+        TrainTask(List<Corpus> chunks, Vocabulary vocabulary, Vocabulary labels, int from, int to) {
+            this.chunks = chunks;
+            this.vocabulary = vocabulary;
+            this.labels = labels;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PartialResult compute() {
+            if (to - from == 1) {
+                return new DataChunkTrainer(chunks.get(from), vocabulary, labels).call();
+            }
+            int mid = (from + to) >>> 1;
+            TrainTask right = new TrainTask(chunks, vocabulary, labels, mid, to);
+            right.fork();
+            PartialResult left = new TrainTask(chunks, vocabulary, labels, from, mid).compute();
+            left.mergeIn(right.join());
+            return left;
+        }
+    }
+
+    private static final class MergeTask extends RecursiveTask<PartialResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<PartialResult> parts;
+        private final int from;
+        private final int to;
+
+        MergeTask(List<PartialResult> parts, int from, int to) {
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PartialResult compute() {
+            if (to - from == 1) return parts.get(from);
+            int mid = (from + to) >>> 1;
+            MergeTask right = new MergeTask(parts, mid, to);
+            right.fork();
+            PartialResult left = new MergeTask(parts, from, mid).compute();
+            left.mergeIn(right.join());
+            return left;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe PredictionCache
+ * Cache borné des prédictions, placé devant la tokenisation et le calcul des scores : un message déjà
+ * vu (campagnes de spam envoyant des milliers de fois le même texte) est servi sans être re-tokenisé.
+ *
+ * - Clé : SipHash-2-4 du message normalisé, c.-à-d. de sa suite de tokens (casse, ponctuation,
+ *   espaces et stopwords sans effet) : les variantes de présentation d'un même texte partagent l'entrée.
+ *   Les clés SipHash sont tirées au hasard au démarrage du processus : un client ne peut pas fabriquer
+ *   de collision pour se faire servir le résultat d'un autre message. Une seconde empreinte (autre clé)
+ *   est gardée dans l'entrée et vérifiée à chaque succès (128 bits au total).
+ * - Éviction sensible à la fréquence (TinyLFU) : segments LRU, et un nouveau message n'entre dans un
+ *   segment plein que s'il a été demandé plus souvent que la victime LRU (compteurs count-min,
+ *   divisés par 2 périodiquement pour suivre les campagnes). Un flux de messages uniques ne chasse
+ *   donc pas les messages répétés.
+ * - Concurrence : segments indépendants, chacun sous son propre verrou.
+ * - Invalidation : le cache est lié à une instance de modèle ; passer un autre modèle (rechargement,
+ *   nouvelle version publiée) vide le cache avant de répondre. Chaque entrée porte le modèle et la
+ *   génération (nb d'invalidations) sous lesquels elle a été calculée, vérifiés à chaque succès : un
+ *   résultat calculé pendant un changement de modèle n'est jamais servi avec le nouveau.
+ */
+public final class PredictionCache {
+
+    private static final int SEGMENTS = 16;
+
+    // Clés SipHash du processus : k0, k1 pour la clé du cache, k2, k3 pour l'empreinte de contrôle
+    private static final long[] SIP_KEYS = new long[4];
+
+    static {
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i < SIP_KEYS.length; i++) SIP_KEYS[i] = random.nextLong();
+    }
+
+    // Résultat mis en cache, avec de quoi vérifier qu'il vaut pour la requête courante
+    private static final class Entry {
+        final String label;
+        final double score;
+        final long check;                       // seconde empreinte du message
+        final Classifier model;                 // modèle qui a calculé le résultat
+        final long generation;                  // génération du cache au début du calcul
+
+        Entry(String label, double score, long check, Classifier model, long generation) {
+            this.label = label;
+            this.score = score;
+            this.check = check;
+            this.model = model;
+            this.generation = generation;
+        }
+
+        boolean matches(long check, Classifier model, long generation) {
+            return this.check == check && this.model == model && this.generation == generation;
+        }
+    }
+
+    // Segment : LRU (ordre d'accès) + compteurs de fréquence, sous le verrou du segment
+    private static final class Segment {
+        final int capacity;
+        final LinkedHashMap<Long, Entry> entries;
+        final int[] sketch;                     // count-min 4 lignes
+        final int sketchMask;
+        final int resetAfter;                   // nb d'incréments avant division par 2
+        int increments;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true);
+            int width = Integer.highestOneBit(Math.max(16, capacity * 4) - 1) << 1;
+            this.sketch = new int[4 * width];
+            this.sketchMask = width - 1;
+            this.resetAfter = Math.max(64, capacity * 10);
+        }
+
+        void increment(long key) {
+            for (int i = 0; i < 4; i++) {
+                int slot = slot(key, i);
+                if (sketch[slot] < Integer.MAX_VALUE) sketch[slot]++;
+            }
+            if (++increments >= resetAfter) {
+                for (int i = 0; i < sketch.length; i++) sketch[i] >>>= 1;
+                increments /= 2;
+            }
+        }
+
+        int frequency(long key) {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                min = Math.min(min, sketch[slot(key, i)]);
+            }
+            return min;
+        }
+
+        private int slot(long key, int row) {
+            return row * (sketchMask + 1) + ((int) mix64(key + row * 0x9e3779b97f4a7c15L) & sketchMask);
+        }
+    }
+
+    // Message normalisé (tokens séparés par des espaces), produit par le Tokenizer (un par thread)
+    private static final class Normalizer {
+        final Tokenizer tokenizer = new Tokenizer(Tokenizer.REMOVE_STOPWORDS_BY_DEFAULT);   // comme DataPreprocessor
+        byte[] bytes = new byte[256];
+        int length;
+        final long[] v = new long[4];           // état SipHash
+        final Tokenizer.TokenSink sink = (b, n) -> {
+            if (length + n + 1 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + n + 1));
+            System.arraycopy(b, 0, bytes, length, n);
+            length += n;
+            bytes[length++] = ' ';              // séparateur : "ab c" != "a bc"
+        };
+
+        void normalize(String message) {
+            length = 0;
+            tokenizer.scan(message, sink);
+        }
+
+        // SipHash-2-4 du message normalisé avec la clé (k0, k1)
+        long hash(long k0, long k1) {
+            v[0] = 0x736f6d6570736575L ^ k0;
+            v[1] = 0x646f72616e646f6dL ^ k1;
+            v[2] = 0x6c7967656e657261L ^ k0;
+            v[3] = 0x7465646279746573L ^ k1;
+            int end = length & ~7;
+            for (int i = 0; i < end; i += 8) {
+                long m = 0;
+                for (int k = 7; k >= 0; k--) m = m << 8 | (bytes[i + k] & 0xffL);
+                compress(m);
+            }
+            long last = (long) length << 56;
+            for (int i = end; i < length; i++) last |= (bytes[i] & 0xffL) << (8 * (i - end));
+            compress(last);
+            v[2] ^= 0xff;
+            for (int r = 0; r < 4; r++) sipRound(v);
+            return v[0] ^ v[1] ^ v[2] ^ v[3];
+        }
+
+        private void compress(long m) {
+            v[3] ^= m;
+            sipRound(v);
+            sipRound(v);
+            v[0] ^= m;
+        }
+    }
+
+    private static final ThreadLocal<Normalizer> NORMALIZER = ThreadLocal.withInitial(Normalizer::new);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private volatile Classifier model;
+    private volatile long generation;           // incrémentée à chaque invalidation
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param capacity nb maximal de messages en cache (réparti sur 16 segments)
+     */
+    public PredictionCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        int perSegment = Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(perSegment);
+    }
+
+    /**
+     * Classe prédite par model pour le message brut (tokenisé seulement en cas d'absence du cache).
+     */
+    public String predict(Classifier model, String message) {
+        return lookup(model, message).label;
+    }
+
+    /**
+     * Écrit (classe, score) du message brut à la position index de out.
+     */
+    public void predictInto(Classifier model, String message, BatchPrediction out, int index) {
+        Entry e = lookup(model, message);
+        out.set(index, e.label, e.score);
+    }
+
+    /**
+     * Prédit un lot de messages bruts sur parallelism threads, via le cache.
+     */
+    public BatchPrediction predictBatch(Classifier model, List<String> messages, int parallelism) {
+        return BatchPrediction.compute(messages, parallelism, (m, out, i) -> predictInto(model, m, out, i));
+    }
+
+    /**
+     * Prédit un lot de messages bruts sur le pool fourni, via le cache.
+     */
+    public BatchPrediction predictBatch(Classifier model, List<String> messages, ForkJoinPool pool) {
+        return BatchPrediction.compute(messages, pool, (m, out, i) -> predictInto(model, m, out, i));
+    }
+
+    private Entry lookup(Classifier model, String message) {
+        if (model != this.model) bind(model);
+        long generation = this.generation;
+
+        Normalizer normalizer = NORMALIZER.get();
+        normalizer.normalize(message);
+        long key = normalizer.hash(SIP_KEYS[0], SIP_KEYS[1]);
+        long check = normalizer.hash(SIP_KEYS[2], SIP_KEYS[3]);
+        Segment segment = segments[(int) (key >>> 60)];
+
+        Entry e;
+        synchronized (segment) {
+            segment.increment(key);
+            e = segment.entries.get(key);
+        }
+        if (e != null && e.matches(check, model, generation)) {
+            hits.increment();
+            return e;
+        }
+
+        misses.increment();
+        BatchPrediction out = new BatchPrediction(1);
+        model.predictInto(normalizer.tokenizer.tokenize(message), out, 0);
+        e = new Entry(out.label(0), out.score(0), check, model, generation);
+
+        admit(segment, key, e);
+        return e;
+    }
+
+    // Entrée admise si place libre, ou si plus fréquente que la victime LRU
+    private void admit(Segment segment, long key, Entry e) {
+        synchronized (segment) {
+            // Le modèle a pu changer pendant le calcul : ne pas mettre en cache un résultat périmé
+            if (e.model != this.model || e.generation != generation) return;
+            Entry existing = segment.entries.get(key);
+            if (existing != null) {
+                // Même message déjà en cache, ou entrée périmée / autre message de même clé : remplacée
+                if (existing.matches(e.check, e.model, e.generation)) return;
+                segment.entries.remove(key);
+            }
+            if (segment.entries.size() >= segment.capacity) {
+                Iterator<Map.Entry<Long, Entry>> it = segment.entries.entrySet().iterator();
+                long victim = it.next().getKey();
+                if (segment.frequency(key) <= segment.frequency(victim)) {
+                    rejections.increment();
+                    return;
+                }
+                it.remove();
+                evictions.increment();
+            }
+            segment.entries.put(key, e);
+        }
+    }
+
+    // Nouveau modèle : cache vidé avant de publier le modèle, puis seuls ses résultats sont servis
+    private synchronized void bind(Classifier model) {
+        if (model == this.model) return;
+        if (this.model != null) invalidate();
+        this.model = model;
+    }
+
+    /**
+     * Vide le cache (ex. après un rechargement du même modèle modifié sur place) ; les calculs en cours
+     * ne seront ni admis ni servis (génération précédente).
+     */
+    public synchronized void invalidate() {
+        generation++;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+        invalidations.increment();
+    }
+
+    public int size() {
+        int n = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                n += segment.entries.size();
+            }
+        }
+        return n;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Statistiques sur une ligne.
+     */
+    public String stats() {
+        return String.format(Locale.ROOT,
+                "size=%d hits=%d misses=%d hit_rate=%.4f evictions=%d rejections=%d invalidations=%d",
+                size(), hits.sum(), misses.sum(), hitRate(), evictions.sum(), rejections.sum(), invalidations.sum());
+    }
+
+    private static void sipRound(long[] v) {
+        v[0] += v[1];
+        v[1] = Long.rotateLeft(v[1], 13) ^ v[0];
+        v[0] = Long.rotateLeft(v[0], 32);
+        v[2] += v[3];
+        v[3] = Long.rotateLeft(v[3], 16) ^ v[2];
+        v[0] += v[3];
+        v[3] = Long.rotateLeft(v[3], 21) ^ v[0];
+        v[2] += v[1];
+        v[1] = Long.rotateLeft(v[1], 17) ^ v[2];
+        v[2] = Long.rotateLeft(v[2], 32);
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * ScalabilityBenchmark.java
+ *
+ * Chaîne complète chargement -> entraînement -> fusion -> évaluation, en séquentiel
+ * (NaiveBayesSequential, 1 thread) puis en parallèle (NaiveBayesParallel : MappedTsvReader,
+ * DataChunkTrainer, fusion TREE, predictBatch) et "stealing" (même chaîne, entraînement par
+ * WorkStealingTrainer) à 1, 2, 4 ... maxThreads threads, pour plusieurs facteurs d'échelle du corpus.
+ *
+ * Facteur s > 1 : le fichier d'entraînement est réécrit s fois, la copie i ayant chaque mot
+ * suffixé par "z" + i (documents et vocabulaire multipliés par s ; le jeu de test est inchangé).
+ * Chaque configuration : warmups exécutions ignorées, puis repetitions mesurées (médiane).
+ *
+ * Sortie CSV (défaut scalability.csv, à côté de results.csv) :
+ * scale,implementation,threads,docs,tokens,load_ms,train_ms,eval_ms,total_ms,
+ * docs_per_s,tokens_per_s,speedup,efficiency,peak_heap_mb,accuracy
+ * speedup = total séquentiel / total ; efficiency = speedup / threads.
+ */
+public class ScalabilityBenchmark {
+
+    // Mesures d'une exécution de la chaîne
+    private static final class Run {
+        double loadMs, trainMs, evalMs;
+        long docs, tokens;
+        double peakHeapMb;
+        double accuracy;
+
+        double totalMs() {
+            return loadMs + trainMs + evalMs;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java ScalabilityBenchmark <train.tsv> <test.tsv> [maxThreads] [scales, ex. 1,4,16]"
+                    + " [warmups] [repetitions] [out.csv]");
+            System.exit(1);
+        }
+        Path trainPath = Paths.get(args[0]);
+        Path testPath = Paths.get(args[1]);
+        int maxThreads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int[] scales = args.length >= 4
+                ? Arrays.stream(args[3].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+                : new int[] {1, 4, 16};
+        int warmups = args.length >= 5 ? Integer.parseInt(args[4]) : 2;
+        int repetitions = args.length >= 6 ? Integer.parseInt(args[5]) : 5;
+        String out = args.length >= 7 ? args[6] : "scalability.csv";
+        if (CorpusCache.ENABLED) {
+            // load_ms mesurerait la relecture du cache, pas l'analyse du texte
+            System.err.println("❌ Lancer sans -Dnaivebayes.cache=true (cache des corpus actif)");
+            System.exit(1);
+        }
+
+        try (PrintWriter csv = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+            String header = "scale,implementation,threads,docs,tokens,load_ms,train_ms,eval_ms,total_ms,"
+                    + "docs_per_s,tokens_per_s,speedup,efficiency,peak_heap_mb,accuracy";
+            csv.println(header);
+            System.out.println(header);
+
+            for (int scale : scales) {
+                Path scaled = scaleFile(trainPath, scale);
+                try {
+                    Run sequential = measure(() -> runSequential(scaled, testPath), warmups, repetitions);
+                    report(csv, scale, "sequential", 1, sequential, sequential.totalMs());
+                    for (int threads : threadCounts(maxThreads)) {
+                        Run parallel = measure(() -> runParallel(scaled, testPath, threads, false), warmups, repetitions);
+                        report(csv, scale, "parallel", threads, parallel, sequential.totalMs());
+                        Run stealing = measure(() -> runParallel(scaled, testPath, threads, true), warmups, repetitions);
+                        report(csv, scale, "stealing", threads, stealing, sequential.totalMs());
+                    }
+                } finally {
+                    if (scale > 1) Files.deleteIfExists(scaled);
+                }
+            }
+        }
+        System.out.println("📂 Résultats exportés dans " + out);
+    }
+
+    private interface Pipeline {
+        Run run() throws Exception;
+    }
+
+    // Médiane de chaque étape sur les répétitions, pic de tas maximal
+    private static Run measure(Pipeline pipeline, int warmups, int repetitions) throws Exception {
+        for (int i = 0; i < warmups; i++) pipeline.run();
+        double[] load = new double[repetitions];
+        double[] train = new double[repetitions];
+        double[] eval = new double[repetitions];
+        Run median = null;
+        double peak = 0;
+        for (int r = 0; r < repetitions; r++) {
+            System.gc();
+            resetPeakHeap();
+            Run run = pipeline.run();
+            run.peakHeapMb = peakHeapMb();
+            load[r] = run.loadMs;
+            train[r] = run.trainMs;
+            eval[r] = run.evalMs;
+            peak = Math.max(peak, run.peakHeapMb);
+            median = run;
+        }
+        Arrays.sort(load);
+        Arrays.sort(train);
+        Arrays.sort(eval);
+        median.loadMs = load[repetitions / 2];
+        median.trainMs = train[repetitions / 2];
+        median.evalMs = eval[repetitions / 2];
+        median.peakHeapMb = peak;
+        return median;
+    }
+
+    private static Run runSequential(Path trainPath, Path testPath) throws IOException {
+        Run run = new Run();
+        long t0 = System.nanoTime();
+        Corpus trainData = MappedTsvReader.load(trainPath, new Vocabulary(), new Vocabulary(), 1);
+        Corpus testData = MappedTsvReader.load(testPath, new Vocabulary(), new Vocabulary(), 1);
+        long t1 = System.nanoTime();
+        NaiveBayesSequential nb = new NaiveBayesSequential();
+        nb.train(trainData);
+        long t2 = System.nanoTime();
+        BatchPrediction predictions = nb.predictBatch(testData.messages(), 1);
+        long t3 = System.nanoTime();
+        return fill(run, trainData, testData, predictions, t0, t1, t2, t3);
+    }
+
+    private static Run runParallel(Path trainPath, Path testPath, int threads, boolean stealing) throws Exception {
+        Run run = new Run();
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        long t0 = System.nanoTime();
+        Corpus trainData = MappedTsvReader.load(trainPath, vocabulary, labels, threads);
+        Corpus testData = MappedTsvReader.load(testPath, vocabulary, labels, threads);
+        long t1 = System.nanoTime();
+        PartialResult global = stealing
+                ? WorkStealingTrainer.train(trainData, vocabulary, labels, threads)
+                : PartialResultReducer.train(trainData.chunks(threads), vocabulary, labels, threads,
+                        PartialResultReducer.Mode.TREE);
+        NaiveBayesModel model = new NaiveBayesModel(global);
+        long t2 = System.nanoTime();
+        BatchPrediction predictions = model.predictBatch(testData.messages(), threads);
+        long t3 = System.nanoTime();
+        return fill(run, trainData, testData, predictions, t0, t1, t2, t3);
+    }
+
+    private static Run fill(Run run, Corpus trainData, Corpus testData, BatchPrediction predictions,
+                            long t0, long t1, long t2, long t3) {
+        run.loadMs = (t1 - t0) / 1e6;
+        run.trainMs = (t2 - t1) / 1e6;
+        run.evalMs = (t3 - t2) / 1e6;
+        run.docs = trainData.size() + testData.size();
+        run.tokens = trainData.tokenCount() + testData.tokenCount();
+        int correct = 0;
+        for (int i = 0; i < testData.size(); i++) {
+            if (testData.labelName(i).equals(predictions.label(i))) correct++;
+        }
+        run.accuracy = testData.isEmpty() ? 0 : (double) correct / testData.size();
+        return run;
+    }
+
+    private static void report(PrintWriter csv, int scale, String implementation, int threads, Run run,
+                               double sequentialMs) {
+        double seconds = run.totalMs() / 1000;
+        double speedup = sequentialMs / run.totalMs();
+        String line = String.format(Locale.ROOT, "%d,%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.0f,%.0f,%.3f,%.3f,%.1f,%.4f",
+                scale, implementation, threads, run.docs, run.tokens, run.loadMs, run.trainMs, run.evalMs,
+                run.totalMs(), run.docs / seconds, run.tokens / seconds, speedup, speedup / threads,
+                run.peakHeapMb, run.accuracy);
+        csv.println(line);
+        csv.flush();
+        System.out.println(line);
+    }
+
+    // 1, 2, 4 ... puis maxThreads s'il n'est pas une puissance de 2
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t <= maxThreads; t *= 2) counts.add(t);
+        if (counts.get(counts.size() - 1) != maxThreads) counts.add(maxThreads);
+        return counts;
+    }
+
+    // Copie i (1 <= i < scale) : chaque mot suffixé par "z" + i (reste un seul token alphanumérique)
+    private static Path scaleFile(Path trainPath, int scale) throws IOException {
+        if (scale <= 1) return trainPath;
+        Corpus data = MappedTsvReader.load(trainPath);
+        Path scaled = Files.createTempFile("train-x" + scale, ".tsv");
+        try (BufferedWriter bw = Files.newBufferedWriter(scaled)) {
+            for (int i = 0; i < scale; i++) {
+                for (int d = 0; d < data.size(); d++) {
+                    StringBuilder sb = new StringBuilder(data.labelName(d)).append('\t');
+                    for (String t : data.tokens(d)) {
+                        sb.append(t);
+                        if (i > 0) sb.append('z').append(i);
+                        sb.append(' ');
+                    }
+                    bw.write(sb.toString());
+                    bw.newLine();
+                }
+            }
+        }
+        return scaled;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    // Somme des pics des zones du tas (majorant du pic global)
+    private static double peakHeapMb() {
+        long bytes = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) bytes += pool.getPeakUsage().getUsed();
+        }
+        return bytes / (1024.0 * 1024.0);
+    }
+}
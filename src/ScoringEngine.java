@@ -0,0 +1,254 @@
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Classe ScoringEngine
+ * Scores détaillés d'un CompiledModel, pour router selon la confiance :
+ * - score() : log-probabilités jointes, probabilités a posteriori normalisées (log-sum-exp),
+ *   log-odds et marge entre les deux meilleures classes, classement top-k ;
+ * - decide() (2 classes) : une seule somme de log-odds log P(w|positive) - log P(w|négative),
+ *   arrêtée dès que les tokens restants ne peuvent plus faire passer la somme de l'autre côté
+ *   du seuil (borne : nb de tokens restants x plus grand log-odds d'un mot, dans chaque sens).
+ *
+ * Même arithmétique que CompiledModel : la classe de score() est celle de predict().
+ * Immuable : une instance peut être utilisée par plusieurs threads.
+ */
+public final class ScoringEngine {
+
+    /**
+     * Scores de toutes les classes pour un message.
+     */
+    public static final class Result {
+        private final String[] labels;
+        private final double[] logProbs;        // log P(c, message)
+        private final double[] posteriors;      // P(c | message)
+        private final Integer[] order;          // classes par score décroissant
+
+        Result(String[] labels, double[] logProbs) {
+            this.labels = labels;
+            this.logProbs = logProbs;
+            this.posteriors = new double[logProbs.length];
+            this.order = new Integer[logProbs.length];
+
+            double max = Double.NEGATIVE_INFINITY;
+            for (double lp : logProbs) max = Math.max(max, lp);
+            double sum = 0;
+            for (int c = 0; c < logProbs.length; c++) {
+                posteriors[c] = Math.exp(logProbs[c] - max);
+                sum += posteriors[c];
+            }
+            for (int c = 0; c < logProbs.length; c++) {
+                posteriors[c] /= sum;
+                order[c] = c;
+            }
+            // Tri stable : à égalité, la classe d'indice le plus petit d'abord (comme CompiledModel)
+            Arrays.sort(order, (a, b) -> Double.compare(logProbs[b], logProbs[a]));
+        }
+
+        public String label() {
+            return labels[order[0]];
+        }
+
+        public double logProb(String label) {
+            int c = indexOf(label);
+            return c < 0 ? Double.NEGATIVE_INFINITY : logProbs[c];
+        }
+
+        public double posterior(String label) {
+            int c = indexOf(label);
+            return c < 0 ? 0 : posteriors[c];
+        }
+
+        // Probabilité a posteriori de la classe prédite
+        public double confidence() {
+            return posteriors[order[0]];
+        }
+
+        // log P(1re) - log P(2e) : log-odds de la décision (infini s'il n'y a qu'une classe)
+        public double logOdds() {
+            return order.length < 2 ? Double.POSITIVE_INFINITY : logProbs[order[0]] - logProbs[order[1]];
+        }
+
+        // P(1re | message) - P(2e | message)
+        public double margin() {
+            return order.length < 2 ? posteriors[order[0]] : posteriors[order[0]] - posteriors[order[1]];
+        }
+
+        /**
+         * Les k meilleures classes, par probabilité a posteriori décroissante.
+         */
+        public List<Map.Entry<String, Double>> topK(int k) {
+            List<Map.Entry<String, Double>> out = new ArrayList<>();
+            for (int i = 0; i < Math.min(k, order.length); i++) {
+                out.add(new AbstractMap.SimpleImmutableEntry<>(labels[order[i]], posteriors[order[i]]));
+            }
+            return out;
+        }
+
+        private int indexOf(String label) {
+            for (int c = 0; c < labels.length; c++) {
+                if (labels[c].equals(label)) return c;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Décision binaire : positive si log-odds > seuil.
+     */
+    public static final class Decision {
+        public final boolean positive;
+        public final double logOdds;        // somme calculée (partielle si earlyExit)
+        public final int tokensScored;
+        public final boolean earlyExit;
+
+        Decision(boolean positive, double logOdds, int tokensScored, boolean earlyExit) {
+            this.positive = positive;
+            this.logOdds = logOdds;
+            this.tokensScored = tokensScored;
+            this.earlyExit = earlyExit;
+        }
+    }
+
+    private final CompiledModel model;
+    private final String[] labels;
+    private final int numClasses;
+    private final int numTokens;
+
+    // Mode binaire (null si le modèle n'a pas exactement 2 classes)
+    private final String positiveLabel;
+    private final double priorLogOdds;
+    private final double unseenLogOdds;
+    private final double[] tokenLogOdds;     // [idMot]
+    private final double maxStep;            // plus grand log-odds d'un mot (>= 0)
+    private final double minStep;            // plus petit log-odds d'un mot (<= 0)
+
+    // Modèle à 2 classes : la première classe est la classe positive de decide()
+    public ScoringEngine(CompiledModel model) {
+        this(model, model.numClasses() == 2 ? model.label(0) : null);
+    }
+
+    /**
+     * @param positiveLabel classe "positive" de decide() (ex. "spam"), modèle à 2 classes
+     */
+    public ScoringEngine(CompiledModel model, String positiveLabel) {
+        this.model = model;
+        this.numClasses = model.numClasses();
+        this.numTokens = model.numTokens();
+        this.labels = new String[numClasses];
+        for (int c = 0; c < numClasses; c++) labels[c] = model.label(c);
+
+        int pos = positiveLabel == null ? -1 : Arrays.asList(labels).indexOf(positiveLabel);
+        if (positiveLabel != null && (numClasses != 2 || pos < 0)) {
+            throw new IllegalArgumentException("binary scoring needs 2 classes including " + positiveLabel
+                    + ": " + Arrays.toString(labels));
+        }
+        this.positiveLabel = positiveLabel;
+        if (pos < 0) {
+            priorLogOdds = unseenLogOdds = maxStep = minStep = 0;
+            tokenLogOdds = null;
+            return;
+        }
+
+        int neg = 1 - pos;
+        priorLogOdds = model.logPrior(pos) - model.logPrior(neg);
+        unseenLogOdds = model.unseenLogProb(pos) - model.unseenLogProb(neg);
+        tokenLogOdds = new double[numTokens];
+        double max = Math.max(0, unseenLogOdds);
+        double min = Math.min(0, unseenLogOdds);
+        for (int t = 0; t < numTokens; t++) {
+            tokenLogOdds[t] = model.logLikelihood(t, pos) - model.logLikelihood(t, neg);
+            max = Math.max(max, tokenLogOdds[t]);
+            min = Math.min(min, tokenLogOdds[t]);
+        }
+        maxStep = max;
+        minStep = min;
+    }
+
+    /**
+     * Scores complets (toutes les classes, tous les tokens).
+     */
+    public Result score(List<String> tokens) {
+        double[] logProbs = new double[numClasses];
+        model.score(tokens, logProbs);   // même calcul que predict()
+        return new Result(labels, logProbs);
+    }
+
+    /**
+     * Décision binaire "log-odds > threshold" avec arrêt anticipé.
+     * threshold = 0 : même décision que predict() (hors égalité exacte).
+     */
+    public Decision decide(List<String> tokens, double threshold) {
+        if (tokenLogOdds == null) throw new IllegalStateException("binary scoring needs a 2-class model");
+        Vocabulary vocabulary = model.vocabulary();
+        double sum = priorLogOdds;
+        int n = tokens.size();
+        for (int i = 0; i < n; i++) {
+            int remaining = n - i;
+            if (sum + remaining * minStep > threshold) return new Decision(true, sum, i, true);
+            if (sum + remaining * maxStep <= threshold) return new Decision(false, sum, i, true);
+
+            int id = vocabulary.idOf(tokens.get(i));
+            sum += id < 0 || id >= numTokens ? unseenLogOdds : tokenLogOdds[id];
+        }
+        return new Decision(sum > threshold, sum, n, false);
+    }
+
+    public String positiveLabel() {
+        return positiveLabel;
+    }
+
+    /**
+     * Rapport sur un jeu de test : accord de decide() avec predict(), part des tokens évités,
+     * répartition de la confiance.
+     * args[0] : train.tsv, args[1] : test.tsv, args[2] : classe positive (défaut spam),
+     * args[3] : seuils de log-odds (défaut -5,0,5)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java ScoringEngine <train.tsv> <test.tsv> [positiveLabel] [thresholds, ex. -5,0,5]");
+            System.exit(1);
+        }
+        String positive = args.length >= 3 ? args[2] : "spam";
+        double[] thresholds = Arrays.stream((args.length >= 4 ? args[3] : "-5,0,5").split(","))
+                .mapToDouble(s -> Double.parseDouble(s.trim())).toArray();
+
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus train = MappedTsvReader.load(Paths.get(args[0]), vocabulary, labels, 1);
+        Corpus test = MappedTsvReader.load(Paths.get(args[1]), vocabulary, labels, 1);
+        CompiledModel model = new NaiveBayesModel(new DataChunkTrainer(train, vocabulary, labels).call()).compile();
+        ScoringEngine engine = new ScoringEngine(model, positive);
+        String negative = engine.labels[engine.labels[0].equals(positive) ? 1 : 0];
+
+        int[] confidenceBands = new int[5];     // [0.5,0.6) ... [0.9,1]
+        for (int i = 0; i < test.size(); i++) {
+            double conf = engine.score(test.tokens(i)).confidence();
+            confidenceBands[Math.min(4, Math.max(0, (int) ((conf - 0.5) * 10)))]++;
+        }
+        System.out.println("Confiance (P a posteriori de la classe prédite) : "
+                + "[0.5,0.6)=" + confidenceBands[0] + " [0.6,0.7)=" + confidenceBands[1]
+                + " [0.7,0.8)=" + confidenceBands[2] + " [0.8,0.9)=" + confidenceBands[3]
+                + " [0.9,1]=" + confidenceBands[4]);
+
+        System.out.println("threshold,agreement_with_full_sum,early_exits,tokens_scored_pct");
+        for (double threshold : thresholds) {
+            int agree = 0;
+            int early = 0;
+            long scored = 0;
+            long total = 0;
+            for (int i = 0; i < test.size(); i++) {
+                List<String> tokens = test.tokens(i);
+                Decision d = engine.decide(tokens, threshold);
+                Result r = engine.score(tokens);
+                double full = r.logProb(positive) - r.logProb(negative);
+                if (d.positive == (full > threshold)) agree++;
+                if (d.earlyExit) early++;
+                scored += d.tokensScored;
+                total += tokens.size();
+            }
+            System.out.printf(Locale.ROOT, "%.2f,%d/%d,%d,%.1f%n", threshold, agree, test.size(), early,
+                    100.0 * scored / Math.max(1, total));
+        }
+    }
+}
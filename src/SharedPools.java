@@ -0,0 +1,24 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Classe SharedPools
+ * ForkJoinPool partagés, un par niveau de parallélisme, créés à la première demande et jamais fermés :
+ * les appels répétés (prédiction par lot, évaluation, entraînement) réutilisent les mêmes threads au lieu
+ * de créer puis arrêter un pool à chaque appel, et des appels concurrents se partagent ces threads.
+ *
+ * Le nb de threads est celui demandé (contrairement à ForkJoinPool.commonPool()) : les mesures de
+ * scalabilité restent valides. Threads démons, arrêtés par le pool après 60 s d'inactivité.
+ */
+final class SharedPools {
+
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private SharedPools() {
+    }
+
+    static ForkJoinPool get(int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe SpaceSavingSketch
+ * Résumé "Space-Saving" (Metwally et al.) des tokens les plus fréquents d'un flux, en mémoire fixe :
+ * au plus capacity compteurs. Un token non suivi remplace le compteur minimal (compte = min + 1,
+ * erreur = min). Tout token de fréquence > n / capacity est garanti d'être suivi.
+ *
+ * Compteurs rangés dans un tas-min indexé (remplacement du minimum en O(log capacity)).
+ * Non thread-safe.
+ */
+public final class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, Integer> slots;    // token -> position dans le tas
+    private final String[] tokens;
+    private final long[] counts;
+    private final long[] errors;
+    private int size = 0;
+    private long total = 0;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.capacity = capacity;
+        this.slots = new HashMap<>(capacity * 2);
+        this.tokens = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    public void add(String token) {
+        total++;
+        Integer slot = slots.get(token);
+        if (slot != null) {
+            counts[slot]++;
+            siftDown(slot);
+        } else if (size < capacity) {
+            tokens[size] = token;
+            counts[size] = 1;
+            errors[size] = 0;
+            slots.put(token, size);
+            siftUp(size++);
+        } else {
+            // Remplace le minimum (racine du tas)
+            slots.remove(tokens[0]);
+            long min = counts[0];
+            tokens[0] = token;
+            counts[0] = min + 1;
+            errors[0] = min;
+            slots.put(token, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Nb de tokens vus dans le flux.
+     */
+    public long total() {
+        return total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compte estimé (majorant) du token, 0 s'il n'est pas suivi.
+     */
+    public long estimate(String token) {
+        Integer slot = slots.get(token);
+        return slot == null ? 0 : counts[slot];
+    }
+
+    /**
+     * Au plus k tokens suivis, par compte estimé décroissant ; si guaranteedOnly, seuls ceux dont le
+     * compte minimal garanti (compte - erreur) dépasse le compte du k+1-ième.
+     */
+    public List<String> top(int k, boolean guaranteedOnly) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            int c = Long.compare(counts[b], counts[a]);
+            return c != 0 ? c : tokens[a].compareTo(tokens[b]);
+        });
+        int n = Math.min(k, size);
+        long next = n < size ? counts[order[n]] : 0;
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int s = order[i];
+            if (!guaranteedOnly || counts[s] - errors[s] >= next) out.add(tokens[s]);
+        }
+        return out;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int right = left + 1;
+            int smallest = right < size && counts[right] < counts[left] ? right : left;
+            if (counts[i] <= counts[smallest]) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String t = tokens[a];
+        tokens[a] = tokens[b];
+        tokens[b] = t;
+        long c = counts[a];
+        counts[a] = counts[b];
+        counts[b] = c;
+        long e = errors[a];
+        errors[a] = errors[b];
+        errors[b] = e;
+        slots.put(tokens[a], a);
+        slots.put(tokens[b], b);
+    }
+}
@@ -0,0 +1,140 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * StreamingTrainer.java
+ *
+ * Entraînement en flux (producteur / consommateurs) pour des corpus plus gros que la mémoire :
+ * - le thread appelant lit le fichier ligne par ligne et envoie des lots de batchSize lignes brutes
+ *   dans une file bornée (queueCapacity lots) : il ne fait que lire, sans tokeniser ;
+ * - numWorkers workers (pool partagé, SharedPools) tokenisent chaque lot (dictionnaires partagés,
+ *   Vocabulary.intern thread-safe) puis le comptent dans leur propre PartialResult, pendant la lecture ;
+ * - à la fin, les résultats des workers sont fusionnés en arbre sur le même pool.
+ *
+ * Mémoire crête des données : (queueCapacity + numWorkers + 1) * batchSize lignes,
+ * quelle que soit la taille du fichier (seuls les comptages grandissent avec le vocabulaire).
+ */
+public class StreamingTrainer {
+
+    // Marqueur de fin de flux (comparé par identité)
+    private static final List<String> END = new ArrayList<>();
+
+    private final int numWorkers;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    public StreamingTrainer(int numWorkers, int batchSize, int queueCapacity) {
+        if (numWorkers <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("numWorkers, batchSize and queueCapacity must be > 0");
+        }
+        this.numWorkers = numWorkers;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Entraîne sur le fichier path (format label \t tokens) sans le charger entièrement.
+     */
+    public PartialResult train(Path path, Vocabulary vocabulary, Vocabulary labels)
+            throws IOException, InterruptedException, ExecutionException {
+        BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        ForkJoinPool pool = SharedPools.get(numWorkers);
+        List<Future<PartialResult>> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < numWorkers; i++) {
+                workers.add(pool.submit(() -> consume(queue, vocabulary, labels)));
+            }
+
+            // === Producteur : lecture + découpage en lots de lignes ===
+            try (BufferedReader br = Files.newBufferedReader(path)) {
+                List<String> batch = new ArrayList<>(batchSize);
+                String line;
+                while ((line = br.readLine()) != null) {
+                    batch.add(line);
+                    if (batch.size() == batchSize) {
+                        put(queue, batch, workers);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) put(queue, batch, workers);
+            }
+            for (int i = 0; i < numWorkers; i++) {
+                put(queue, END, workers);
+            }
+
+            // === Agrégation des résultats des workers ===
+            List<PartialResult> parts = new ArrayList<>();
+            for (Future<PartialResult> f : workers) {
+                parts.add(f.get());
+            }
+            return PartialResultReducer.mergeTree(parts, pool);
+        } finally {
+            // Erreur : les workers encore en attente sur la file s'arrêtent (pool partagé, non fermé)
+            for (Future<PartialResult> f : workers) f.cancel(true);
+        }
+    }
+
+    // Worker : tokenise puis compte les lots jusqu'au marqueur de fin
+    private static PartialResult consume(BlockingQueue<List<String>> queue, Vocabulary vocabulary, Vocabulary labels)
+            throws InterruptedException {
+        PartialResult pr = new PartialResult(vocabulary, labels);
+        Tokenizer tokenizer = new Tokenizer(false);   // fichier prétraité : pas de re-filtrage
+        List<String> lines;
+        while ((lines = queue.take()) != END) {
+            Corpus.Builder batch = new Corpus.Builder(vocabulary, labels);
+            for (String line : lines) NaiveBayesParallel.parseLine(line, tokenizer, batch);
+            DataChunkTrainer.accumulate(pr, batch.build());
+        }
+        return pr;
+    }
+
+    // put() bloquant, mais qui abandonne si un worker s'est arrêté (sinon la file ne se viderait plus)
+    private static void put(BlockingQueue<List<String>> queue, List<String> batch,
+                            List<Future<PartialResult>> workers) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<PartialResult> f : workers) {
+                if (f.isDone()) {
+                    f.get(); // relance l'exception du worker
+                    throw new IllegalStateException("worker terminé avant la fin du flux");
+                }
+            }
+        }
+    }
+
+    /**
+     * args[0] : fichier d'entraînement (label \t tokens)
+     * args[1] : fichier de test (optionnel)
+     * args[2] : nb de workers (défaut : nb de cœurs)
+     * args[3] : taille des lots (défaut 1024)
+     * args[4] : capacité de la file en lots (défaut 2 * workers)
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java StreamingTrainer <train.tsv> [test.tsv] [workers] [batchSize] [queueCapacity]");
+            System.exit(1);
+        }
+        int workers = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length >= 4 ? Integer.parseInt(args[3]) : 1024;
+        int queueCapacity = args.length >= 5 ? Integer.parseInt(args[4]) : 2 * workers;
+
+        long t0 = System.currentTimeMillis();
+        PartialResult global = new StreamingTrainer(workers, batchSize, queueCapacity)
+                .train(Paths.get(args[0]), new Vocabulary(), new Vocabulary());
+        long t1 = System.currentTimeMillis();
+
+        System.out.println("⏱ Temps d'entraînement (streaming, " + workers + " workers) = " + (t1 - t0) + " ms");
+        System.out.println("Nombre total de documents par classe : " + global.docCountsByLabel());
+        System.out.println("Nombre total de mots par classe : " + global.totalWordsByLabel());
+        System.out.println("Taille vocabulaire global : " + global.vocabularySize());
+
+        if (args.length >= 2) {
+            Evaluator.evaluate(new NaiveBayesModel(global), MappedTsvReader.load(Paths.get(args[1])), workers);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Classe SyntheticCorpus
+ * Générateur de corpus synthétique calqué sur un corpus réel (SMSSpamCollection) :
+ * - proportion des classes, longueur des messages et fréquence des mots par classe reprises du corpus réel ;
+ * - taille du corpus et taille du vocabulaire choisies librement (benchmarks, tests de montée en charge).
+ *
+ * Vocabulaire cible plus petit que le réel : seuls les vocabularySize mots les plus fréquents sont tirés.
+ * Plus grand : chaque mot tiré reçoit une variante "mot_k" (k uniforme), ce qui multiplie le vocabulaire
+ * en gardant la distribution des fréquences.
+ * Génération reproductible : même graine => même corpus.
+ */
+public class SyntheticCorpus {
+
+    private final long seed;
+    private final String[] labels;          // classes
+    private final double[] classCdf;        // répartition cumulée des classes
+    private final String[] tokens;          // mots du corpus réel, par fréquence décroissante
+    private final long[][] tokenCdf;        // [classe][rang] : occurrences cumulées des mots de rang <= rang
+    private final int[][] lengths;          // [classe] : longueurs de messages observées
+
+    private SyntheticCorpus(long seed, String[] labels, double[] classCdf, String[] tokens,
+                            long[][] tokenCdf, int[][] lengths) {
+        this.seed = seed;
+        this.labels = labels;
+        this.classCdf = classCdf;
+        this.tokens = tokens;
+        this.tokenCdf = tokenCdf;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Construit le générateur à partir d'un fichier au format SMSSpamCollection (label \t message).
+     */
+    public static SyntheticCorpus fromCollection(String path, long seed) throws IOException {
+        Corpus data = DataPreprocessor.loadAndPreprocess(path, true);
+        if (data.isEmpty()) throw new IllegalArgumentException("corpus vide : " + path);
+        Vocabulary vocabulary = data.vocabulary();
+        int[] ids = data.tokenArray();
+
+        // Mots triés par fréquence décroissante (ordre stable : puis alphabétique)
+        int[] freq = new int[vocabulary.size()];
+        for (int k = data.start(0); k < data.start(data.size()); k++) freq[ids[k]]++;
+        Integer[] order = new Integer[freq.length];
+        for (int t = 0; t < order.length; t++) order[t] = t;
+        Arrays.sort(order, (a, b) -> {
+            int c = Integer.compare(freq[b], freq[a]);
+            return c != 0 ? c : vocabulary.token(a).compareTo(vocabulary.token(b));
+        });
+        String[] tokens = new String[order.length];
+        int[] rank = new int[order.length];                 // id -> rang
+        for (int i = 0; i < order.length; i++) {
+            tokens[i] = vocabulary.token(order[i]);
+            rank[order[i]] = i;
+        }
+
+        // Ids de classe du corpus : ordre de première apparition
+        int numClasses = data.labels().size();
+        long[][] counts = new long[numClasses][tokens.length];
+        List<List<Integer>> lens = new ArrayList<>();
+        for (int c = 0; c < numClasses; c++) lens.add(new ArrayList<>());
+        double[] classCdf = new double[numClasses];
+        for (int d = 0; d < data.size(); d++) {
+            int c = data.label(d);
+            classCdf[c]++;
+            lens.get(c).add(data.length(d));
+            for (int k = data.start(d); k < data.start(d + 1); k++) counts[c][rank[ids[k]]]++;
+        }
+        String[] labelNames = new String[numClasses];
+        for (int c = 0; c < numClasses; c++) labelNames[c] = data.labels().token(c);
+
+        int[][] lengths = new int[numClasses][];
+        for (int c = 0; c < numClasses; c++) {
+            lengths[c] = lens.get(c).stream().mapToInt(Integer::intValue).toArray();
+            for (int r = 1; r < tokens.length; r++) counts[c][r] += counts[c][r - 1];
+        }
+        for (int c = 1; c < numClasses; c++) classCdf[c] += classCdf[c - 1];
+        for (int c = 0; c < numClasses; c++) classCdf[c] /= data.size();
+
+        return new SyntheticCorpus(seed, labelNames, classCdf, tokens, counts, lengths);
+    }
+
+    /**
+     * Génère numDocs messages dont le vocabulaire compte environ vocabularySize mots distincts.
+     */
+    public Corpus generate(int numDocs, int vocabularySize) {
+        Corpus.Builder out = new Corpus.Builder(new Vocabulary(), new Vocabulary());
+        Random rnd = new Random(seed);
+        int topRanks = Math.min(tokens.length, vocabularySize);
+        int variants = Math.max(1, (int) Math.ceil((double) vocabularySize / tokens.length));
+
+        for (int d = 0; d < numDocs; d++) {
+            int c = sampleClass(rnd);
+            int len = lengths[c][rnd.nextInt(lengths[c].length)];
+            List<String> doc = new ArrayList<>(len);
+            for (int i = 0; i < len; i++) {
+                String t = tokens[sampleRank(rnd, c, topRanks)];
+                doc.add(variants == 1 ? t : t + "_" + rnd.nextInt(variants));
+            }
+            out.add(labels[c], doc);
+        }
+        return out.build();
+    }
+
+    /**
+     * Écrit un corpus généré au format SMSSpamCollection (label \t message).
+     */
+    public void writeCollection(Path out, int numDocs, int vocabularySize) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(out)) {
+            Corpus corpus = generate(numDocs, vocabularySize);
+            for (int i = 0; i < corpus.size(); i++) {
+                bw.write(DataPreprocessor.toTsv(corpus, i));
+                bw.newLine();
+            }
+        }
+    }
+
+    private int sampleClass(Random rnd) {
+        double u = rnd.nextDouble();
+        for (int c = 0; c < classCdf.length - 1; c++) {
+            if (u < classCdf[c]) return c;
+        }
+        return classCdf.length - 1;
+    }
+
+    // Rang tiré selon les fréquences de la classe c, restreint aux topRanks mots les plus fréquents
+    private int sampleRank(Random rnd, int c, int topRanks) {
+        long[] cdf = tokenCdf[c];
+        long total = cdf[topRanks - 1];
+        if (total == 0) return rnd.nextInt(topRanks);
+        long u = (long) (rnd.nextDouble() * total);
+        int lo = 0;
+        int hi = topRanks - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (cdf[mid] > u) hi = mid; else lo = mid + 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,139 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Classe TokenIdCache
+ * Table de hachage à adressage ouvert (séquence d'octets -> id) placée devant un Vocabulary.
+ * Permet de convertir un token lu directement dans un buffer d'octets en id sans créer de String :
+ * une String n'est allouée que la première fois qu'un token est rencontré par ce cache.
+ *
+ * Non thread-safe : une instance par thread (le Vocabulary sous-jacent, lui, est partagé).
+ */
+public final class TokenIdCache {
+
+    private final Vocabulary vocabulary;
+    private byte[][] keys = new byte[1024][];
+    private int[] ids = new int[1024];
+    private int[] hashes = new int[1024];
+    private int size = 0;
+
+    public TokenIdCache(Vocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+    }
+
+    /**
+     * Id du token formé par les octets [from, from + len) de buf (ajouté au vocabulaire s'il est nouveau).
+     */
+    public int intern(ByteBuffer buf, int from, int len) {
+        int h = hash(buf, from, len);
+        int mask = keys.length - 1;
+        int slot = h & mask;
+        byte[] k;
+        while ((k = keys[slot]) != null) {
+            if (hashes[slot] == h && equals(k, buf, from, len)) return ids[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = new byte[len];
+        for (int i = 0; i < len; i++) key[i] = buf.get(from + i);
+        int id = vocabulary.intern(new String(key, StandardCharsets.UTF_8));
+        insert(key, h, id);
+        return id;
+    }
+
+    /**
+     * Id du token formé par les octets [0, len) de bytes (ajouté au vocabulaire s'il est nouveau).
+     */
+    public int intern(byte[] bytes, int len) {
+        int h = hash(bytes, 0, len);
+        int mask = keys.length - 1;
+        int slot = h & mask;
+        byte[] k;
+        while ((k = keys[slot]) != null) {
+            if (hashes[slot] == h && Arrays.equals(k, 0, k.length, bytes, 0, len)) return ids[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = Arrays.copyOf(bytes, len);
+        int id = vocabulary.intern(new String(key, StandardCharsets.UTF_8));
+        insert(key, h, id);
+        return id;
+    }
+
+    public Vocabulary vocabulary() {
+        return vocabulary;
+    }
+
+    private void insert(byte[] key, int h, int id) {
+        if (2 * (size + 1) > keys.length) resize();
+        int mask = keys.length - 1;
+        int slot = h & mask;
+        while (keys[slot] != null) slot = (slot + 1) & mask;
+        keys[slot] = key;
+        hashes[slot] = h;
+        ids[slot] = id;
+        size++;
+    }
+
+    private void resize() {
+        byte[][] oldKeys = keys;
+        int[] oldIds = ids;
+        int[] oldHashes = hashes;
+        int n = oldKeys.length * 2;
+        keys = new byte[n][];
+        ids = new int[n];
+        hashes = new int[n];
+        int mask = n - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            hashes[slot] = oldHashes[i];
+            ids[slot] = oldIds[i];
+        }
+    }
+
+    // FNV-1a 32 bits, avec mélange final pour l'adressage par masque
+    static int hash(ByteBuffer buf, int from, int len) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < len; i++) {
+            h ^= buf.get(from + i) & 0xff;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static int hash(byte[] b, int from, int len) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < len; i++) {
+            h ^= b[from + i] & 0xff;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // Même hachage sur les octets UTF-8 de s (sans conversion si s est en ASCII)
+    static int hash(String s) {
+        int h = 0x811c9dc5;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                return hash(utf8, 0, utf8.length);
+            }
+            h ^= c;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equals(byte[] key, ByteBuffer buf, int from, int len) {
+        if (key.length != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (key[i] != buf.get(from + i)) return false;
+        }
+        return true;
+    }
+}
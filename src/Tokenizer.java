@@ -0,0 +1,194 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classe Tokenizer
+ * Tokenisation en une seule passe, sans expression régulière, partagée par l'entraînement et la prédiction :
+ * - minuscules ;
+ * - tout caractère hors [a-z0-9] (après passage en minuscules) sépare deux tokens ;
+ * - suppression optionnelle des stopwords (table de hachage sur octets, sans String).
+ * Même résultat que l'ancien pipeline toLowerCase / replaceAll("[^a-z0-9\\s]") / split.
+ *
+ * Le token courant est construit dans un tampon réutilisé : une instance par thread.
+ */
+public final class Tokenizer {
+
+    // Reçoit chaque token : octets ASCII [0, len) de buf (buf est réutilisé après l'appel)
+    @FunctionalInterface
+    public interface TokenSink {
+        void token(byte[] buf, int len);
+    }
+
+    // Option des textes bruts : prétraitement (DataPreprocessor) et prédiction (InteractiveTest,
+    // ClassificationServer, PredictionCache) ; -Dnaivebayes.stopwords=false pour garder les stopwords
+    // des deux côtés. Les fichiers déjà prétraités (train/test .tsv) sont relus sans re-filtrage.
+    public static final boolean REMOVE_STOPWORDS_BY_DEFAULT =
+            Boolean.parseBoolean(System.getProperty("naivebayes.stopwords", "true"));
+
+    // Ensemble de stopwords (exemple réduit). Tu peux l'enrichir si tu veux.
+    static final String[] STOPWORDS = {
+        "a", "an", "the", "and", "or", "is", "are", "was", "were", "in", "on",
+        "at", "to", "from", "for", "of", "with", "that", "this", "it", "i",
+        "you", "he", "she", "we", "they", "me", "my", "your"
+    };
+
+    private static final byte[][] STOP_TABLE = buildStopTable();
+
+    private final boolean removeStopwords;
+    private byte[] buf = new byte[64];   // token en cours
+    private int len = 0;
+    private int[] ids = new int[64];     // ids du dernier appel à tokenizeIds
+    private int idCount = 0;
+    private TokenIdCache idCache;        // cache utilisé par idSink pendant tokenizeIds
+    private final TokenSink idSink = (b, n) -> addId(idCache.intern(b, n));
+
+    public Tokenizer() {
+        this(REMOVE_STOPWORDS_BY_DEFAULT);
+    }
+
+    public Tokenizer(boolean removeStopwords) {
+        this.removeStopwords = removeStopwords;
+    }
+
+    /**
+     * Découpe text et envoie chaque token à sink.
+     */
+    public void scan(CharSequence text, TokenSink sink) {
+        scan(text, 0, text.length(), sink);
+    }
+
+    /**
+     * Découpe les caractères [from, to) de text et envoie chaque token à sink.
+     */
+    public void scan(CharSequence text, int from, int to, TokenSink sink) {
+        len = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                append((byte) c);
+            } else if (c >= 'A' && c <= 'Z') {
+                append((byte) (c + ('a' - 'A')));
+            } else if (c == '\u212A') {     // signe Kelvin : toLowerCase() donne 'k'
+                append((byte) 'k');
+            } else if (c == '\u0130') {     // 'İ' : toLowerCase() donne "i" + point combinant (séparateur)
+                append((byte) 'i');
+                flush(sink);
+            } else {
+                flush(sink);
+            }
+        }
+        flush(sink);
+    }
+
+    /**
+     * Découpe les octets UTF-8 [from, to) de bytes et envoie chaque token à sink.
+     * Les caractères non ASCII sont des séparateurs, comme dans scan(CharSequence).
+     */
+    public void scan(ByteBuffer bytes, int from, int to, TokenSink sink) {
+        len = 0;
+        for (int i = from; i < to; i++) {
+            int b = bytes.get(i) & 0xff;
+            if (b >= 'a' && b <= 'z' || b >= '0' && b <= '9') {
+                append((byte) b);
+            } else if (b >= 'A' && b <= 'Z') {
+                append((byte) (b + ('a' - 'A')));
+            } else if (b == 0xE2 && i + 2 < to && (bytes.get(i + 1) & 0xff) == 0x84 && (bytes.get(i + 2) & 0xff) == 0xAA) {
+                append((byte) 'k');              // U+212A
+                i += 2;
+            } else if (b == 0xC4 && i + 1 < to && (bytes.get(i + 1) & 0xff) == 0xB0) {
+                append((byte) 'i');              // U+0130
+                flush(sink);
+                i += 1;
+            } else {
+                flush(sink);
+            }
+        }
+        flush(sink);
+    }
+
+    /**
+     * Tokens de text sous forme de Strings (nouvelle liste).
+     */
+    public List<String> tokenize(CharSequence text) {
+        return tokenize(text, 0, text.length());
+    }
+
+    /**
+     * Tokens des caractères [from, to) de text sous forme de Strings (nouvelle liste).
+     */
+    public List<String> tokenize(CharSequence text, int from, int to) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, from, to, (b, n) -> tokens.add(new String(b, 0, n, StandardCharsets.US_ASCII)));
+        return tokens;
+    }
+
+    /**
+     * Convertit text en ids via cache ; les ids sont dans ids()[0..retour-1] jusqu'au prochain appel.
+     */
+    public int tokenizeIds(CharSequence text, TokenIdCache cache) {
+        idCache = cache;
+        idCount = 0;
+        scan(text, idSink);
+        return idCount;
+    }
+
+    /**
+     * Comme tokenizeIds(CharSequence, ...) pour les octets UTF-8 [from, to) de bytes.
+     */
+    public int tokenizeIds(ByteBuffer bytes, int from, int to, TokenIdCache cache) {
+        idCache = cache;
+        idCount = 0;
+        scan(bytes, from, to, idSink);
+        return idCount;
+    }
+
+    // Tampon d'ids réutilisé par tokenizeIds
+    public int[] ids() {
+        return ids;
+    }
+
+    private void addId(int id) {
+        if (idCount == ids.length) ids = Arrays.copyOf(ids, ids.length * 2);
+        ids[idCount++] = id;
+    }
+
+    private void append(byte b) {
+        if (len == buf.length) buf = Arrays.copyOf(buf, len * 2);
+        buf[len++] = b;
+    }
+
+    private void flush(TokenSink sink) {
+        if (len == 0) return;
+        if (!(removeStopwords && isStopword(buf, len))) {
+            sink.token(buf, len);
+        }
+        len = 0;
+    }
+
+    // Recherche dans la table des stopwords (adressage ouvert, mêmes hachages que TokenIdCache)
+    static boolean isStopword(byte[] b, int n) {
+        int mask = STOP_TABLE.length - 1;
+        int slot = TokenIdCache.hash(b, 0, n) & mask;
+        byte[] k;
+        while ((k = STOP_TABLE[slot]) != null) {
+            if (k.length == n && Arrays.equals(k, 0, n, b, 0, n)) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static byte[][] buildStopTable() {
+        byte[][] table = new byte[Integer.highestOneBit(STOPWORDS.length * 4)][];
+        int mask = table.length - 1;
+        for (String w : STOPWORDS) {
+            byte[] k = w.getBytes(StandardCharsets.US_ASCII);
+            int slot = TokenIdCache.hash(k, 0, k.length) & mask;
+            while (table[slot] != null) slot = (slot + 1) & mask;
+            table[slot] = k;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe Vocabulary
+ * Dictionnaire qui associe à chaque mot (ou classe) un identifiant entier dense 0..size-1.
+ *
+ * - intern() est thread-safe : plusieurs DataChunkTrainer peuvent partager le même dictionnaire,
+ *   ce qui rend les identifiants compatibles entre résultats partiels.
+ * - Les identifiants ne changent jamais une fois attribués (dictionnaire en ajout seul).
+ */
+public class Vocabulary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>(); // mot -> id
+    private volatile String[] tokens = new String[16];                                   // id -> mot
+    private volatile int size = 0;                                                       // nb d'ids attribués
+
+    /**
+     * Retourne l'id du mot, en l'ajoutant au dictionnaire s'il est nouveau.
+     */
+    public int intern(String token) {
+        Integer id = ids.get(token);
+        if (id != null) return id;
+
+        synchronized (this) {
+            id = ids.get(token);
+            if (id != null) return id;
+
+            int next = size;
+            String[] arr = tokens;
+            if (next == arr.length) {
+                arr = Arrays.copyOf(arr, arr.length * 2);
+            }
+            arr[next] = token;
+            tokens = arr;              // publier le tableau avant l'id
+            size = next + 1;
+            ids.put(token, next);
+            return next;
+        }
+    }
+
+    /**
+     * Retourne l'id du mot, ou -1 s'il est inconnu (n'ajoute rien).
+     */
+    public int idOf(String token) {
+        Integer id = ids.get(token);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Retourne le mot associé à un id.
+     */
+    public String token(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("id inconnu : " + id);
+        return tokens[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Sérialisation : seul le tableau id -> mot est écrit, l'index inverse est reconstruit
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        ids = new ConcurrentHashMap<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            ids.put(tokens[i], i);
+        }
+    }
+}
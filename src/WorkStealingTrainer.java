@@ -0,0 +1,169 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classe WorkStealingTrainer
+ * Entraînement parallèle équilibré par volume de tokens (et non par nb de documents comme
+ * Corpus.chunks) :
+ * - sommes préfixes du nb de tokens des documents ; une plage [from, to) est coupée au milieu de
+ *   son volume (recherche dichotomique), récursivement, jusqu'à grain tokens ;
+ * - ForkJoin : les moitiés sont des sous-tâches (CountedCompleter, sans attente de join) ; un thread
+ *   inactif vole celles des autres, il n'y a pas de morceau lent qui retarde toute l'exécution ;
+ * - chaque thread compte dans son propre PartialResult (un par thread, pas par plage) : le découpage
+ *   fin ne coûte aucune fusion supplémentaire ; les résultats des threads sont fusionnés en arbre à la fin ;
+ * - aucune copie des données (Corpus.slice sur des plages d'indices).
+ *
+ * Variante Executor (fourni par l'appelant, ex. Executors.newVirtualThreadPerTaskExecutor() à partir de
+ * Java 21) : workers tâches se partagent des blocs de volume égal via un compteur (auto-ordonnancement).
+ */
+public final class WorkStealingTrainer {
+
+    // Plus petite plage découpée (en tokens) : en dessous, le coût des tâches domine
+    private static final long MIN_GRAIN = 4096;
+
+    private WorkStealingTrainer() {
+    }
+
+    /**
+     * Entraîne sur le ForkJoinPool partagé de parallelism threads (SharedPools).
+     */
+    public static PartialResult train(Corpus data, Vocabulary vocabulary, Vocabulary labels, int parallelism) {
+        return train(data, vocabulary, labels, SharedPools.get(parallelism));
+    }
+
+    /**
+     * Entraîne sur le pool fourni (dictionnaires partagés : ids compatibles).
+     */
+    public static PartialResult train(Corpus data, Vocabulary vocabulary, Vocabulary labels, ForkJoinPool pool) {
+        if (data.isEmpty()) return new PartialResult(vocabulary, labels);
+        long[] volume = prefixVolume(data);
+        long grain = Math.max(MIN_GRAIN, volume[data.size()] / (pool.getParallelism() * 16L));
+
+        Map<Thread, PartialResult> perThread = new ConcurrentHashMap<>();
+        pool.invoke(new RangeTask(null, data, volume, grain, 0, data.size(), vocabulary, labels, perThread));
+        return PartialResultReducer.mergeTree(new ArrayList<>(perThread.values()), pool);
+    }
+
+    /**
+     * Entraîne avec workers tâches sur l'executor fourni : environ 16 blocs de volume égal par tâche,
+     * distribués dynamiquement (une tâche libre prend le bloc suivant).
+     */
+    public static PartialResult train(Corpus data, Vocabulary vocabulary, Vocabulary labels,
+                                      Executor executor, int workers) throws InterruptedException, ExecutionException {
+        if (workers <= 0) throw new IllegalArgumentException("workers must be > 0");
+        int[] bounds = blocks(prefixVolume(data), workers * 16);
+        AtomicInteger next = new AtomicInteger();
+
+        List<CompletableFuture<PartialResult>> tasks = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            tasks.add(CompletableFuture.supplyAsync(() -> {
+                PartialResult pr = new PartialResult(vocabulary, labels);
+                int b;
+                while ((b = next.getAndIncrement()) < bounds.length - 1) {
+                    count(pr, data, bounds[b], bounds[b + 1]);
+                }
+                return pr;
+            }, executor));
+        }
+        PartialResult global = new PartialResult(vocabulary, labels);
+        for (CompletableFuture<PartialResult> task : tasks) {
+            global.mergeIn(task.get());
+        }
+        return global;
+    }
+
+    // volume[i] = nb de tokens des documents [0, i) (+1 par document : coût fixe d'un document)
+    static long[] prefixVolume(Corpus data) {
+        long[] volume = new long[data.size() + 1];
+        long base = data.isEmpty() ? 0 : data.start(0);
+        for (int i = 1; i <= data.size(); i++) {
+            volume[i] = data.start(i) - base + i;
+        }
+        return volume;
+    }
+
+    // Premier indice m de (from, to) tel que [from, m) contient au moins la moitié du volume de [from, to)
+    static int splitPoint(long[] volume, int from, int to) {
+        long half = volume[from] + (volume[to] - volume[from]) / 2;
+        int lo = from + 1;
+        int hi = to - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (volume[mid] < half) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Bornes de numBlocks blocs de volume voisin (blocs vides retirés)
+    static int[] blocks(long[] volume, int numBlocks) {
+        int n = volume.length - 1;
+        long total = volume[n];
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        for (int b = 1; b < numBlocks; b++) {
+            long target = total * b / numBlocks;
+            int i = Arrays.binarySearch(volume, target);
+            if (i < 0) i = -i - 1;
+            if (i > bounds.get(bounds.size() - 1) && i < n) bounds.add(i);
+        }
+        if (n > 0) bounds.add(n);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Compte les documents [from, to) dans pr (avec les métriques d'un morceau si elles sont actives)
+    private static void count(PartialResult pr, Corpus data, int from, int to) {
+        Corpus range = data.slice(from, to);
+        if (!Metrics.ENABLED) {
+            DataChunkTrainer.accumulate(pr, range);
+            return;
+        }
+        long t0 = System.nanoTime();
+        DataChunkTrainer.accumulate(pr, range);
+        long nanos = System.nanoTime() - t0;
+        Metrics.recordChunk(range.size(), range.tokenCount(), nanos, -1);
+    }
+
+    // Plage [from, to) : détache des moitiés (volées par les threads libres) jusqu'au grain, puis compte
+    private static final class RangeTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Corpus data;
+        private final long[] volume;
+        private final long grain;
+        private final int from;
+        private final int to;
+        private final Vocabulary vocabulary;
+        private final Vocabulary labels;
+        private final Map<Thread, PartialResult> perThread;
+
+        RangeTask(CountedCompleter<?> parent, Corpus data, long[] volume, long grain, int from, int to,
+                  Vocabulary vocabulary, Vocabulary labels, Map<Thread, PartialResult> perThread) {
+            super(parent);
+            this.data = data;
+            this.volume = volume;
+            this.grain = grain;
+            this.from = from;
+            this.to = to;
+            this.vocabulary = vocabulary;
+            this.labels = labels;
+            this.perThread = perThread;
+        }
+
+        @Override
+        public void compute() {
+            int hi = to;
+            while (hi - from > 1 && volume[hi] - volume[from] > grain) {
+                int mid = splitPoint(volume, from, hi);
+                addToPendingCount(1);
+                new RangeTask(this, data, volume, grain, mid, hi, vocabulary, labels, perThread).fork();
+                hi = mid;
+            }
+            // Un seul thread utilise son PartialResult à la fois : pas de verrou
+            PartialResult pr = perThread.computeIfAbsent(Thread.currentThread(), t -> new PartialResult(vocabulary, labels));
+            count(pr, data, from, hi);
+            tryComplete();
+        }
+    }
+}
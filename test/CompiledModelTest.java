@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CompiledModel (et son image MappedModel) comparé au calcul de référence sur les comptages
+ * (NaiveBayesSequential : maps de String, lissage de Laplace).
+ */
+class CompiledModelTest {
+
+    @Test
+    void predictionsMatchSequentialBaseline() {
+        Corpus data = TestCorpora.corpus(new Vocabulary(), new Vocabulary());
+        CompiledModel compiled = new NaiveBayesModel(new DataChunkTrainer(data).call()).compile();
+        NaiveBayesSequential baseline = new NaiveBayesSequential();
+        baseline.train(data);
+
+        for (List<String> query : TestCorpora.QUERIES) {
+            BatchPrediction expected = new BatchPrediction(1);
+            BatchPrediction actual = new BatchPrediction(1);
+            baseline.predictInto(query, expected, 0);
+            compiled.predictInto(query, actual, 0);
+            assertEquals(expected.label(0), actual.label(0), "classe de " + query);
+            assertEquals(expected.score(0), actual.score(0), 1e-9, "score de " + query);
+            assertEquals(expected.label(0), compiled.predict(query));
+        }
+    }
+
+    @Test
+    void mappedImageScoresExactlyLikeCompiledModel() {
+        CompiledModel compiled = new NaiveBayesModel(
+                new DataChunkTrainer(TestCorpora.corpus(new Vocabulary(), new Vocabulary())).call()).compile();
+        MappedModel mapped = MappedModel.of(compiled);
+
+        BatchPrediction expected = compiled.predictBatch(TestCorpora.QUERIES, 1);
+        BatchPrediction actual = mapped.predictBatch(TestCorpora.QUERIES, 1);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.label(i), actual.label(i));
+            assertEquals(expected.score(i), actual.score(i), 0.0);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CorpusCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeThenReadGivesSameCorpus() throws IOException {
+        Corpus corpus = TestCorpora.corpus(new Vocabulary(), new Vocabulary());
+        Path entry = dir.resolve("train.corpus");
+        CorpusCache.write(corpus, entry);
+        Corpus back = CorpusCache.read(entry);
+
+        assertEquals(corpus.size(), back.size());
+        assertEquals(corpus.tokenCount(), back.tokenCount());
+        for (int i = 0; i < corpus.size(); i++) {
+            assertEquals(corpus.labelName(i), back.labelName(i));
+            assertEquals(corpus.tokens(i), back.tokens(i));
+        }
+    }
+
+    @Test
+    void writesSliceFromItsFirstMessage() throws IOException {
+        Corpus slice = TestCorpora.corpus(new Vocabulary(), new Vocabulary()).slice(3, 8);
+        Path entry = dir.resolve("slice.corpus");
+        CorpusCache.write(slice, entry);
+        assertEquals(slice.messages(), CorpusCache.read(entry).messages());
+    }
+
+    @Test
+    void rejectsCorruptedEntry() throws IOException {
+        Path entry = dir.resolve("train.corpus");
+        CorpusCache.write(TestCorpora.corpus(new Vocabulary(), new Vocabulary()), entry);
+        byte[] bytes = Files.readAllBytes(entry);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(entry, bytes);
+        assertThrows(IOException.class, () -> CorpusCache.read(entry));
+    }
+}
@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Comptages d'entraînement d'un pli obtenus par soustraction (total - pli) : identiques à un
+ * ré-entraînement complet sur les autres plis.
+ */
+class CrossValidatorTest {
+
+    @Test
+    void totalMinusFoldEqualsRetrainingWithoutFold() {
+        Vocabulary vocabulary = new Vocabulary();
+        Vocabulary labels = new Vocabulary();
+        Corpus data = TestCorpora.corpus(vocabulary, labels);
+        int k = 3;
+        List<Corpus> folds = new CrossValidator(k, 42, 2).folds(data);
+        assertEquals(k, folds.size());
+
+        PartialResult total = new PartialResult(vocabulary, labels);
+        List<PartialResult> foldCounts = new ArrayList<>();
+        for (Corpus fold : folds) {
+            PartialResult pr = new DataChunkTrainer(fold, vocabulary, labels).call();
+            foldCounts.add(pr);
+            total.mergeIn(pr);
+        }
+
+        for (int f = 0; f < k; f++) {
+            List<Corpus> others = new ArrayList<>(folds);
+            others.remove(f);
+            PartialResult retrained = new DataChunkTrainer(Corpus.concat(others, vocabulary, labels),
+                    vocabulary, labels).call();
+            PartialResult subtracted = total.minus(foldCounts.get(f));
+
+            assertEquals(retrained.docCountsByLabel(), subtracted.docCountsByLabel(), "pli " + f);
+            assertEquals(retrained.totalWordsByLabel(), subtracted.totalWordsByLabel(), "pli " + f);
+            assertEquals(retrained.vocabularySize(), subtracted.vocabularySize(), "pli " + f);
+            for (int c = 0; c < labels.size(); c++) {
+                for (int t = 0; t < vocabulary.size(); t++) {
+                    assertEquals(retrained.count(c, t), subtracted.count(c, t), "pli " + f + ", mot " + vocabulary.token(t));
+                }
+            }
+
+            CompiledModel expected = new NaiveBayesModel(retrained).compile();
+            CompiledModel actual = new NaiveBayesModel(subtracted).compile();
+            for (List<String> query : TestCorpora.QUERIES) {
+                assertEquals(expected.predict(query), actual.predict(query));
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class EvaluationEngineTest {
+
+    private static final String[] LABELS = {"spam", "ham"};
+
+    private static EvaluationEngine.Result result(double[] logOdds, boolean[] positive) {
+        return new EvaluationEngine.Result(LABELS, new int[4], "spam", logOdds, positive);
+    }
+
+    @Test
+    void rocAucCountsCorrectlyOrderedPairs() {
+        // Paires (positif, négatif) bien ordonnées : (3,2), (3,0), (1,0) sur 4 => 0,75
+        EvaluationEngine.Result r = result(new double[] {3, 2, 1, 0}, new boolean[] {true, false, true, false});
+        assertEquals(0.75, r.rocAuc(), 1e-12);
+    }
+
+    @Test
+    void rocAucOfPerfectAndTiedScores() {
+        assertEquals(1.0, result(new double[] {5, 4, -1, -2}, new boolean[] {true, true, false, false}).rocAuc(), 1e-12);
+        // Ex aequo : segment diagonal, une paire sur deux
+        assertEquals(0.5, result(new double[] {1, 1}, new boolean[] {true, false}).rocAuc(), 1e-12);
+    }
+
+    @Test
+    void sweepEndsWithEverythingPositive() {
+        EvaluationEngine.Result r = result(new double[] {3, 2, 1, 0}, new boolean[] {true, false, true, false});
+        EvaluationEngine.Point last = r.sweep().get(r.sweep().size() - 1);
+        assertEquals(2, last.tp);
+        assertEquals(2, last.fp);
+        assertEquals(1.0, r.at(Double.NEGATIVE_INFINITY).recall(), 0.0);
+    }
+}
@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelFileTest {
+
+    @TempDir
+    Path dir;
+
+    private Path writeModel(CompiledModel model) throws IOException {
+        Path path = dir.resolve("model.bin");
+        ModelFile.write(model, path);
+        return path;
+    }
+
+    private static CompiledModel model() {
+        return new NaiveBayesModel(
+                new DataChunkTrainer(TestCorpora.corpus(new Vocabulary(), new Vocabulary())).call()).compile();
+    }
+
+    // Lecture par les deux chemins (tas et projection) : IOException attendue
+    private static void assertRejected(Path path) {
+        assertThrows(IOException.class, () -> ModelFile.read(path));
+        assertThrows(IOException.class, () -> MappedModel.open(path));
+    }
+
+    @Test
+    void roundTripKeepsPredictions() throws IOException {
+        CompiledModel model = model();
+        Path path = writeModel(model);
+        CompiledModel back = ModelFile.read(path);
+        for (List<String> query : TestCorpora.QUERIES) {
+            assertEquals(model.predict(query), back.predict(query));
+        }
+        assertFalse(Files.exists(dir.resolve("model.bin.tmp")));
+    }
+
+    @Test
+    void rejectsCorruptedSection() throws IOException {
+        Path path = writeModel(model());
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 3] ^= 0x40;   // dernière log-vraisemblance
+        Files.write(path, bytes);
+        assertRejected(path);
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        Path path = writeModel(model());
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 8));
+        assertRejected(path);
+        Files.write(path, Arrays.copyOf(bytes, ModelFile.HEADER_SIZE - 1));
+        assertRejected(path);
+    }
+
+    @Test
+    void rejectsCraftedHeaderWithValidCrc() throws IOException {
+        Path path = writeModel(model());
+        byte[] original = Files.readAllBytes(path);
+
+        // Nb de classes, nb de tokens et offset des labels incohérents avec les sections
+        int[][] edits = {{ModelFile.OFF_NUM_CLASSES, 3}, {ModelFile.OFF_NUM_TOKENS, 1000}, {ModelFile.OFF_LABELS, 8}};
+        for (int[] edit : edits) {
+            ByteBuffer header = ByteBuffer.wrap(original.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            if (edit[0] == ModelFile.OFF_LABELS) header.putLong(edit[0], edit[1]);
+            else header.putInt(edit[0], edit[1]);
+            header.putInt(ModelFile.OFF_HEADER_CRC, 0);
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), 0, ModelFile.HEADER_SIZE);
+            header.putInt(ModelFile.OFF_HEADER_CRC, (int) crc.getValue());
+            Files.write(path, header.array());
+            assertRejected(path);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class PartialResultCodecTest {
+
+    private static byte[] encode(PartialResult pr) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PartialResultCodec.write(pr, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void roundTripKeepsCounts() throws IOException {
+        PartialResult pr = new DataChunkTrainer(TestCorpora.corpus(new Vocabulary(), new Vocabulary())).call();
+        byte[] bytes = encode(pr);
+        PartialResult back = PartialResultCodec.read(new ByteArrayInputStream(bytes), bytes.length);
+
+        assertEquals(pr.docCountsByLabel(), back.docCountsByLabel());
+        assertEquals(pr.totalWordsByLabel(), back.totalWordsByLabel());
+        assertEquals(pr.vocabularySize(), back.vocabularySize());
+        for (int c = 0; c < pr.numClasses(); c++) {
+            int label = back.labels.idOf(pr.labels.token(c));
+            for (int t = 0; t < pr.vocabulary.size(); t++) {
+                int id = back.vocabulary.idOf(pr.vocabulary.token(t));
+                assertEquals(pr.count(c, t), id < 0 ? 0 : back.count(label, id), pr.vocabulary.token(t));
+            }
+        }
+    }
+
+    @Test
+    void rejectsBadCrc() throws IOException {
+        byte[] bytes = encode(new DataChunkTrainer(TestCorpora.corpus(new Vocabulary(), new Vocabulary())).call());
+        bytes[bytes.length - 1] ^= 1;
+        assertThrows(IOException.class, () -> PartialResultCodec.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void rejectsTruncatedStream() throws IOException {
+        byte[] bytes = encode(new DataChunkTrainer(TestCorpora.corpus(new Vocabulary(), new Vocabulary())).call());
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 6);
+        assertThrows(IOException.class, () -> PartialResultCodec.read(new ByteArrayInputStream(truncated)));
+    }
+
+    @Test
+    void rejectsStreamLongerThanAnnouncedLength() throws IOException {
+        byte[] bytes = encode(new DataChunkTrainer(TestCorpora.corpus(new Vocabulary(), new Vocabulary())).call());
+        assertThrows(IOException.class,
+                () -> PartialResultCodec.read(new ByteArrayInputStream(bytes), bytes.length / 2));
+    }
+}
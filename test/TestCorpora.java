@@ -0,0 +1,41 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Petits corpus partagés par les tests.
+ */
+final class TestCorpora {
+
+    private TestCorpora() {
+    }
+
+    static final String[][] MESSAGES = {
+        {"spam", "win money now"},
+        {"spam", "free money win win"},
+        {"spam", "claim your free prize now"},
+        {"spam", "win a prize"},
+        {"spam", "urgent claim money"},
+        {"ham", "see you at lunch"},
+        {"ham", "call me later"},
+        {"ham", "lunch now or later"},
+        {"ham", "are you free later"},
+        {"ham", "meeting at noon"},
+        {"ham", "see you at the meeting"},
+        {"ham", "call me when you are free"},
+    };
+
+    // Messages de test : mots connus, inconnus, message vide
+    static final List<List<String>> QUERIES = List.of(
+            tokens("win money"), tokens("see you later"), tokens("free prize at lunch"),
+            tokens("unknown words only"), tokens("win unknown"), List.of());
+
+    static Corpus corpus(Vocabulary vocabulary, Vocabulary labels) {
+        Corpus.Builder b = new Corpus.Builder(vocabulary, labels);
+        for (String[] m : MESSAGES) b.add(m[0], tokens(m[1]));
+        return b.build();
+    }
+
+    static List<String> tokens(String text) {
+        return Arrays.asList(text.split(" "));
+    }
+}